@@ -0,0 +1,135 @@
+package core;
+
+import core.evaluation.BatchProgram;
+import core.evaluation.BitColumns;
+import core.evaluation.Program;
+import core.symbols.Literal;
+import core.trees.Node;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Truth tables of many formulas over the union of their variables, evaluated in a single pass
+ *
+ * The formulas are merged into a BatchProgram, so a subformula shared by several formulas is evaluated once
+ * per row. Rows follow the order of TruthTable over getVariableNames: variable i is true in row r iff
+ * bit (n - 1 - i) of r is 0.
+ *
+ * Usage:
+ * <code>new BatchTruthTable(trees).generateBits()[i]</code>
+ * is the truth value column of the i-th tree
+ */
+public class BatchTruthTable {
+
+    private static final int block_words = 64;  // 4096 rows per block, so all nodes of a block stay in cache
+    private static final int max_bit_variables = 36;  // 2^36 rows is the most a long[] can hold
+
+    private final BatchProgram program;
+    private final Literal[] variables;
+
+    public BatchTruthTable(Node... trees) {
+        this(Arrays.asList(trees));
+    }
+
+    public BatchTruthTable(List<Node> trees) {
+        Program[] programs = new Program[trees.size()];
+        Map<String, Literal> literals = new LinkedHashMap<>();
+        for (int i = 0; i < programs.length; i++) {
+            programs[i] = trees.get(i).compile();
+            for (Literal literal : trees.get(i).getLiterals()) {
+                literals.putIfAbsent(literal.getRaw(), literal);
+            }
+        }
+        program = BatchProgram.of(programs);
+        String[] names = program.getVariables();
+        if (names.length >= Long.SIZE - 1) {
+            throw new IllegalStateException(String.format("Too many literals for truth table: %s", names.length));
+        }
+        variables = new Literal[names.length];
+        for (int i = 0; i < names.length; i++) {
+            variables[i] = literals.get(names[i]);
+        }
+    }
+
+    /**
+     * @return raw literals of the shared variables in truth table order
+     */
+    public String[] getVariableNames() {
+        return program.getVariables();
+    }
+
+    public int getFormulaCount() {
+        return program.getProgramCount();
+    }
+
+    /**
+     * @return number of distinct subformulas evaluated per row
+     */
+    public int getNodeCount() {
+        return program.getNodeCount();
+    }
+
+    /**
+     * @return truth value column of each formula, row r is bit r % 64 of word r / 64, as TruthTable.generateBits
+     */
+    public long[][] generateBits() {
+        if (variables.length > max_bit_variables) {
+            throw new IllegalStateException(String.format("Too many literals for bit sliced truth table: %s",
+                    variables.length));
+        }
+        long rows = 1L << variables.length;
+        int words = (int) Math.max(1, rows >>> 6);
+        long[][] results = new long[program.getProgramCount()][words];
+        evaluate((first_word, values, block_length) -> {
+            for (int i = 0; i < results.length; i++) {
+                System.arraycopy(values[program.getRoot(i)], 0, results[i], (int) first_word, block_length);
+            }
+        });
+        if (rows < Long.SIZE) {
+            for (long[] result : results) {
+                result[0] &= (1L << rows) - 1;  // clear bits after the last row
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return number of true rows of each formula, the table is never stored
+     */
+    public long[] countModels() {
+        long rows = 1L << variables.length;
+        long[] counts = new long[program.getProgramCount()];
+        evaluate((first_word, values, block_length) -> {
+            for (int i = 0; i < counts.length; i++) {
+                long[] value = values[program.getRoot(i)];
+                if (rows < Long.SIZE) {
+                    counts[i] += Long.bitCount(value[0] & (1L << rows) - 1);
+                    continue;
+                }
+                for (int w = 0; w < block_length; w++) {
+                    counts[i] += Long.bitCount(value[w]);
+                }
+            }
+        });
+        return counts;
+    }
+
+    private interface BlockConsumer {
+        void accept(long first_word, long[][] values, int block_length);
+    }
+
+    // evaluate all nodes block by block, values[i] holds node i of the current block
+    private void evaluate(BlockConsumer consumer) {
+        long words = Math.max(1, 1L << variables.length >>> 6);
+        BitColumns columns = new BitColumns(variables, (int) Math.min(words, block_words));
+        long[][] values = new long[program.getNodeCount()][columns.getWords()];
+        for (long first_word = 0; first_word < words; first_word += columns.getWords()) {
+            columns.moveTo(first_word);
+            program.evaluate(columns, values);
+            consumer.accept(first_word, values, (int) Math.min(columns.getWords(), words - first_word));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Progress of a resumable truth table enumeration, see TruthTable.generate(Path, Path, Function, long)
+ */
+class Checkpoint {
+
+    private final static int magic = 0x504C5443;  // PLTC
+    private final static int version = 1;
+
+    private final String formula;
+    private final String[] columns;
+    private final long row;  // first row not written yet
+    private final long true_row_count;
+    private final long output_offset;  // bytes of output covering the rows before row
+
+    Checkpoint(String formula, String[] columns, long row, long true_row_count, long output_offset) {
+        this.formula = formula;
+        this.columns = columns;
+        this.row = row;
+        this.true_row_count = true_row_count;
+        this.output_offset = output_offset;
+    }
+
+    static Checkpoint read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != magic || in.readInt() != version) {
+                throw new IOException(String.format("Not a checkpoint file: %s", path));
+            }
+            byte[] formula = new byte[in.readInt()];  // may be longer than readUTF allows
+            in.readFully(formula);
+            String[] columns = new String[in.readInt()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = in.readUTF();
+            }
+            return new Checkpoint(new String(formula, StandardCharsets.UTF_8), columns, in.readLong(), in.readLong(), in.readLong());
+        }
+    }
+
+    /**
+     * Write into a temporary file next to path and move it over path, so a crash never leaves a partial checkpoint
+     */
+    void write(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(magic);
+            out.writeInt(version);
+            byte[] formula_bytes = formula.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(formula_bytes.length);
+            out.write(formula_bytes);
+            out.writeInt(columns.length);
+            for (String column : columns) {
+                out.writeUTF(column);
+            }
+            out.writeLong(row);
+            out.writeLong(true_row_count);
+            out.writeLong(output_offset);
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    boolean matches(String formula, String[] columns) {
+        return this.formula.equals(formula) && Arrays.equals(this.columns, columns);
+    }
+
+    long getRow() {
+        return row;
+    }
+
+    long getTrueRowCount() {
+        return true_row_count;
+    }
+
+    long getOutputOffset() {
+        return output_offset;
+    }
+}
@@ -0,0 +1,278 @@
+package core;
+
+import core.exceptions.InvalidFormulaException;
+import core.trees.Node;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parse a file of newline separated formulas in parallel
+ *
+ * The file is memory mapped and split into chunks of about chunk_size bytes, a line belongs to the chunk
+ * in which it starts. Each chunk is parsed by a Parser confined to its worker thread and only one line at a time
+ * is decoded into a String. Lines must be UTF-8, a trailing '\r' is ignored and empty lines are skipped.
+ *
+ * Usage:
+ * <code>new CorpusParser().parse(path).getEntries()</code>
+ */
+public class CorpusParser {
+
+    private static final int default_chunk_size = 1 << 22;  // 4MB
+
+    private final Parser.Mode mode;
+    private final int threads;
+    private final int chunk_size;
+
+    public CorpusParser() {
+        this(Parser.Mode.PRECEDENCE_CLIMBING, Runtime.getRuntime().availableProcessors(), default_chunk_size);
+    }
+
+    public CorpusParser(Parser.Mode mode, int threads, int chunk_size) {
+        if (mode == null || threads <= 0 || chunk_size <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid mode %s, threads %s or chunk size %s",
+                    mode, threads, chunk_size));
+        }
+        this.mode = mode;
+        this.threads = threads;
+        this.chunk_size = chunk_size;
+    }
+
+    /**
+     * @return one entry per non empty line in file order
+     * @throws UncheckedIOException if the file can't be read
+     */
+    public Result parse(Path path) {
+        long start_time = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ThreadLocal<Parser> parsers = ThreadLocal.withInitial(() -> new Parser(mode));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Future<Chunk>> chunks = new ArrayList<>();
+            for (long start = 0; start < size; start += chunk_size) {
+                long chunk_start = start;
+                long chunk_end = Math.min(size, start + chunk_size);
+                chunks.add(pool.submit(() -> parseChunk(channel, size, chunk_start, chunk_end, parsers.get())));
+            }
+            List<Entry> entries = new ArrayList<>();
+            long lines = 0;  // lines before the current chunk
+            for (Future<Chunk> future : chunks) {
+                Chunk chunk = future.get();
+                for (Entry entry : chunk.entries) {
+                    entry.line += lines;
+                    entries.add(entry);
+                }
+                lines += chunk.line_count;
+            }
+            return new Result(entries, lines, size, Duration.ofNanos(System.nanoTime() - start_time));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing corpus", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) throw (UncheckedIOException) e.getCause();
+            throw new IllegalStateException("Failed to parse corpus", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // lines starting in [start, end), line numbers relative to the chunk
+    private static Chunk parseChunk(FileChannel channel, long size, long start, long end, Parser parser) {
+        long map_start = start == 0 ? 0 : start - 1;  // the byte before start tells if a line starts at start
+        MappedByteBuffer buffer = map(channel, map_start, Math.min(end - map_start, Integer.MAX_VALUE));
+        int position = (int) (start - map_start);
+        if (start != 0 && buffer.get(0) != '\n') {  // the line in progress belongs to the previous chunk
+            while (position < buffer.limit() && buffer.get(position) != '\n') position++;
+            position++;
+        }
+        int limit = (int) (end - map_start);
+        Chunk chunk = new Chunk();
+        byte[] line = new byte[256];
+        while (position < limit) {
+            int line_end = position;
+            while (line_end < buffer.limit() && buffer.get(line_end) != '\n') line_end++;
+            if (line_end == buffer.limit() && end < size) {
+                // only the last line runs past end, map it on its own
+                buffer = mapLine(channel, size, map_start + position, 2L * (line_end - position + 1));
+                line_end -= position;
+                while (line_end < buffer.limit() && buffer.get(line_end) != '\n') line_end++;
+                map_start += position;
+                limit -= position;
+                position = 0;
+            }
+            int length = line_end - position;
+            if (length > 0 && buffer.get(line_end - 1) == '\r') length--;
+            chunk.line_count++;
+            if (length > 0) {
+                if (line.length < length) line = new byte[Math.max(length, line.length * 2)];
+                buffer.get(position, line, 0, length);
+                chunk.entries.add(parseLine(parser, new String(line, 0, length, StandardCharsets.UTF_8),
+                        chunk.line_count));
+            }
+            position = line_end + 1;
+        }
+        return chunk;
+    }
+
+    // window doubled from length until it contains the end of the line starting at from
+    private static MappedByteBuffer mapLine(FileChannel channel, long size, long from, long length) {
+        int scanned = 0;  // no line end before
+        while (true) {
+            length = Math.min(length, Math.min(size - from, Integer.MAX_VALUE));
+            MappedByteBuffer buffer = map(channel, from, length);
+            if (from + length == size || length == Integer.MAX_VALUE) return buffer;
+            while (scanned < buffer.limit() && buffer.get(scanned) != '\n') scanned++;
+            if (scanned < buffer.limit()) return buffer;
+            length *= 2;
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long from, long length) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Entry parseLine(Parser parser, String formula, long line) {
+        try {
+            return new Entry(line, parser.evaluate(formula).getTree(), null, -1);
+        } catch (InvalidFormulaException e) {
+            return new Entry(line, null, e.getMessage(), e.getOffset() + 1);
+        }
+    }
+
+    private static class Chunk {
+        private final List<Entry> entries = new ArrayList<>();
+        private long line_count;
+    }
+
+    /**
+     * A parsed line, either a tree or an error
+     */
+    public static class Entry {
+
+        private long line;
+        private final Node tree;
+        private final String error;
+        private final long column;
+
+        private Entry(long line, Node tree, String error, long column) {
+            this.line = line;
+            this.tree = tree;
+            this.error = error;
+            this.column = column;
+        }
+
+        /**
+         * @return line number in the file, starting from 1
+         */
+        public long getLine() {
+            return line;
+        }
+
+        public boolean isValid() {
+            return tree != null;
+        }
+
+        /**
+         * @return the parsed tree, null if the line is invalid
+         */
+        public Node getTree() {
+            return tree;
+        }
+
+        /**
+         * @return message of the InvalidFormulaException, null if the line is valid
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * @return column of the error starting from 1, 0 if unknown, -1 if the line is valid
+         */
+        public long getColumn() {
+            return column;
+        }
+
+        @Override
+        public String toString() {
+            return isValid() ?
+                    String.format("%s: %s", line, tree) :
+                    String.format("%s:%s: %s", line, column, error);
+        }
+    }
+
+    /**
+     * Entries of a corpus and the throughput of parsing it
+     */
+    public static class Result {
+
+        private final List<Entry> entries;
+        private final long line_count;
+        private final long byte_count;
+        private final Duration elapsed;
+
+        private Result(List<Entry> entries, long line_count, long byte_count, Duration elapsed) {
+            this.entries = Collections.unmodifiableList(entries);
+            this.line_count = line_count;
+            this.byte_count = byte_count;
+            this.elapsed = elapsed;
+        }
+
+        public List<Entry> getEntries() {
+            return entries;
+        }
+
+        /**
+         * @return number of lines in the file, including empty ones
+         */
+        public long getLineCount() {
+            return line_count;
+        }
+
+        public long getByteCount() {
+            return byte_count;
+        }
+
+        public long getErrorCount() {
+            return entries.stream().filter(entry -> !entry.isValid()).count();
+        }
+
+        public Duration getElapsed() {
+            return elapsed;
+        }
+
+        public double getLinesPerSecond() {
+            return line_count / Math.max(1e-9, elapsed.toNanos() / 1e9);
+        }
+
+        public double getBytesPerSecond() {
+            return byte_count / Math.max(1e-9, elapsed.toNanos() / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s lines, %s errors, %s bytes in %sms (%.0f lines/s, %.1f MB/s)",
+                    line_count, getErrorCount(), byte_count, elapsed.toMillis(),
+                    getLinesPerSecond(), getBytesPerSecond() / (1 << 20));
+        }
+    }
+}
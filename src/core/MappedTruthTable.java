@@ -0,0 +1,243 @@
+package core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A truth table stored in a memory mapped file, see TruthTable.store
+ *
+ * Layout (little endian):
+ * header: magic, version, variable count, flags, row count, model count, names length, names (UTF-8, '\n' separated)
+ * results: one bit per row, row r is bit r % 64 of word r / 64, starting at an 8 byte boundary
+ * rows (optional): the assignment of each row as a long, bit i is the i-th variable
+ *
+ * The file is accessed through mapped windows, so it can be far larger than the heap.
+ */
+public class MappedTruthTable implements Closeable {
+
+    private final static int magic = 0x504C5454;  // PLTT
+    private final static int version = 1;
+    private final static int rows_flag = 1;
+    private final static int fixed_header_size = 36;
+    private final static long window_size = 1L << 30;  // bytes per mapped window, multiple of 8
+
+    private final FileChannel channel;
+    private final String[] names;
+    private final long row_count;
+    private final long model_count;
+    private final long results_offset;
+    private final long rows_offset;  // -1 if rows are not stored
+    private final MappedByteBuffer[] result_windows;
+    private final MappedByteBuffer[] row_windows;
+
+    private MappedTruthTable(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(fixed_header_size).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt() != magic || header.getInt() != version) {
+            throw new IOException("Not a truth table file");
+        }
+        int variable_count = header.getInt();
+        int flags = header.getInt();
+        row_count = header.getLong();
+        model_count = header.getLong();
+        ByteBuffer names_bytes = ByteBuffer.allocate(header.getInt());
+        readFully(names_bytes, fixed_header_size);
+        String joined = new String(names_bytes.array(), StandardCharsets.UTF_8);
+        names = variable_count == 0 ? new String[0] : joined.split("\n", -1);
+        if (names.length != variable_count) throw new IOException("Corrupted variable names");
+
+        results_offset = align(fixed_header_size + names_bytes.capacity());
+        long result_bytes = resultWords(row_count) * Long.BYTES;
+        rows_offset = (flags & rows_flag) != 0 ? results_offset + result_bytes : -1;
+        result_windows = map(channel, FileChannel.MapMode.READ_ONLY, results_offset, result_bytes);
+        row_windows = rows_offset < 0 ?
+                null :
+                map(channel, FileChannel.MapMode.READ_ONLY, rows_offset, row_count * Long.BYTES);
+    }
+
+    /**
+     * Open a file written by TruthTable.store for random access
+     */
+    public static MappedTruthTable open(Path path) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            return new MappedTruthTable(channel);
+        } catch (IOException e) {
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Truncated file");
+        }
+    }
+
+    static long resultWords(long row_count) {
+        return (row_count + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    private static long align(long offset) {
+        return (offset + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long offset, long size)
+            throws IOException {
+        MappedByteBuffer[] windows = new MappedByteBuffer[(int) ((size + window_size - 1) / window_size)];
+        for (int i = 0; i < windows.length; i++) {
+            long start = i * window_size;
+            windows[i] = channel.map(mode, offset + start, Math.min(window_size, size - start));
+            windows[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return windows;
+    }
+
+    private static long getLong(MappedByteBuffer[] windows, long byte_offset) {
+        return windows[(int) (byte_offset / window_size)].getLong((int) (byte_offset % window_size));
+    }
+
+    private void checkRow(long row) {
+        if (row < 0 || row >= row_count) {
+            throw new IndexOutOfBoundsException(String.format("Row %s out of bounds for %s rows", row, row_count));
+        }
+    }
+
+    /**
+     * @return truth value of the formula in the given row
+     */
+    public boolean get(long row) {
+        checkRow(row);
+        return (getResultWord(row >>> 6) >>> row & 1) == 1;
+    }
+
+    /**
+     * @return word i of the result column, bits after the last row are 0
+     */
+    public long getResultWord(long word) {
+        return getLong(result_windows, word * Long.BYTES);
+    }
+
+    /**
+     * @return assignment of the given row, bit i is the truth value of the i-th variable
+     */
+    public long getAssignment(long row) {
+        checkRow(row);
+        if (row_windows == null) return RowSpliterator.toAssignment(row, names.length);
+        return getLong(row_windows, row * Long.BYTES);
+    }
+
+    public boolean hasRows() {
+        return row_windows != null;
+    }
+
+    public String[] getVariableNames() {
+        return names.clone();
+    }
+
+    public long getRowCount() {
+        return row_count;
+    }
+
+    /**
+     * @return number of true rows, counted when the file was written
+     */
+    public long countModels() {
+        return model_count;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();  // mapped windows stay valid until they are collected
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sequential writer of a truth table file, results and rows are written through mapped windows
+     */
+    static class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final long results_offset, rows_offset;
+        private final long result_bytes, row_bytes;
+        private long result_position, row_position;  // bytes written in each section
+        private MappedByteBuffer result_window, row_window;
+        private final long header_position_of_model_count;
+
+        Writer(Path path, String[] names, long row_count, boolean with_rows) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            byte[] names_bytes = String.join("\n", names).getBytes(StandardCharsets.UTF_8);
+            ByteBuffer header = ByteBuffer.allocate(fixed_header_size + names_bytes.length)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(magic).putInt(version).putInt(names.length).putInt(with_rows ? rows_flag : 0)
+                    .putLong(row_count);
+            header_position_of_model_count = header.position();
+            header.putLong(0).putInt(names_bytes.length).put(names_bytes).flip();
+            while (header.hasRemaining()) channel.write(header, header.position());
+
+            results_offset = align(header.capacity());
+            result_bytes = resultWords(row_count) * Long.BYTES;
+            rows_offset = results_offset + result_bytes;
+            row_bytes = with_rows ? row_count * Long.BYTES : 0;
+        }
+
+        private MappedByteBuffer window(long offset, long size, long position) throws IOException {
+            long start = position / window_size * window_size;
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE, offset + start,
+                    Math.min(window_size, size - start));
+            window.order(ByteOrder.LITTLE_ENDIAN);
+            return window;
+        }
+
+        void putResult(long word) throws IOException {
+            if (result_window == null || !result_window.hasRemaining()) {
+                result_window = window(results_offset, result_bytes, result_position);
+            }
+            result_window.putLong(word);
+            result_position += Long.BYTES;
+        }
+
+        void putRow(long assignment) throws IOException {
+            if (row_window == null || !row_window.hasRemaining()) {
+                row_window = window(rows_offset, row_bytes, row_position);
+            }
+            row_window.putLong(assignment);
+            row_position += Long.BYTES;
+        }
+
+        void finish(long model_count) throws IOException {
+            if (result_position != result_bytes || row_position != row_bytes) {
+                throw new IllegalStateException("Truth table file is incomplete");
+            }
+            ByteBuffer count = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            count.putLong(model_count).flip();
+            while (count.hasRemaining()) channel.write(count, header_position_of_model_count + count.position());
+            if (result_window != null) result_window.force();
+            if (row_window != null) row_window.force();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package core;
 
+import core.evaluation.VariableTable;
 import core.exceptions.InvalidFormulaException;
 import core.symbols.Connective;
 import core.symbols.Literal;
 import core.symbols.Negation;
 import core.trees.*;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
@@ -24,8 +31,9 @@ import static core.symbols.Symbol.*;
  *
  * Time Complexity
  * The checking algorithm runs in one pass O(n)
- * The insertion algorithm runs in the same pass O(n log n)
+ * The insertion algorithm runs in the same pass O(n log n), O(n^2) for long chains of mixed precedence
  * Overall this runs in O(n log n)
+ * Mode.PRECEDENCE_CLIMBING builds the same tree with explicit stacks in O(n) without recursion
  *
  * It parse by determining whether previous token can be follow by current token
  *
@@ -34,20 +42,70 @@ import static core.symbols.Symbol.*;
 public class Parser {
 
     private int index;  // current index
-    private Stack<BracketNode> bracket_nodes_stack;  // for checking valid brackets
+    private Deque<BracketNode> bracket_nodes_stack;  // for checking valid brackets
     private Node evaluated_node;
     private BracketNode curr_node;
     private boolean incomplete_clause;  // a flag to check if parsing stopped half way of a complete clause
     private String unprocessed_str;  // user input string
     private Token prev_token;  // for checking if previous token followed by current token
-    private char[] chars;  // char array form of current input string
+    private char[] chars;  // char array form of current input string, reused and may be longer than the input
+    private int length;  // number of valid chars in chars
+    private int buffer_start;  // index of chars[0] in the input, only moves when streaming
+    private int token_start;  // index of the first char of the current token, kept in chars when streaming
+    private Reader reader;  // remaining input when streaming, null once exhausted
 
     private Set<Literal> literalPool;
     private Literal[] literals;
+    private VariableTable variables;  // dense indexes of the raw literals for LitNode
+
+    // error codes of validate, also index of their message in error_messages
+    public static final int VALID = 0;
+    public static final int ERROR_EMPTY = 1;
+    public static final int ERROR_INCOMPLETE_CLAUSE = 2;
+    public static final int ERROR_UNCLOSED_BRACKET = 3;
+    public static final int ERROR_UNOPENED_BRACKET = 4;
+    public static final int ERROR_INVALID_CHARACTER = 5;
+    public static final int ERROR_NEGATION_NOT_ALLOWED = 6;
+    public static final int ERROR_LEFT_BRACKET_NOT_ALLOWED = 7;
+    public static final int ERROR_RIGHT_BRACKET_NOT_ALLOWED = 8;
+    public static final int ERROR_CONNECTIVE_NOT_ALLOWED = 9;
+    public static final int ERROR_LITERAL_NOT_ALLOWED = 10;
+    public static final int ERROR_EXPECTED_AND = 11;
+    public static final int ERROR_EXPECTED_OR = 12;
+    public static final int ERROR_EXPECTED_IMPLIES = 13;
+    public static final int ERROR_EXPECTED_IFF = 14;
+
+    private static final String[] error_messages = {
+            "Valid",
+            "Propositional logic formula can't be empty",
+            "Incomplete clause",
+            "Unclosed opening bracket",
+            "Unopened closing bracket",
+            "Invalid character",
+            "Negation not allowed here",
+            "Left bracket not allowed here",
+            "Right bracket not allowed here",
+            "Connective not allowed here",
+            "Literal not allowed here",
+            String.format("Invalid character: \"%s\", do you mean %s?", FORWARD_SLASH, AND),
+            String.format("Invalid character: \"%s\", do you mean \"%s\" or \"%s\"?", BACKWARD_SLASH, OR, AND),
+            String.format("Invalid character: \"%s\", do you mean %s?", DASH, IMPLIES),
+            String.format("Invalid character: \"%s\", do you mean %s?", LESS_THAN, IFF)
+    };
+
+    private static final int stream_buffer_size = 8192;  // chars read at once when streaming
+    private static final int error_context_size = 40;  // chars shown on each side of a streamed error
+    private final Mode mode;
+    private PrecedenceTreeBuilder tree_builder;  // only for Mode.PRECEDENCE_CLIMBING
 
     public Parser() {
+        this(Mode.INSERTION);
+    }
 
-    } // empty
+    public Parser(Mode mode) {
+        if (mode == null) throw new IllegalArgumentException("Parser mode can't be null");
+        this.mode = mode;
+    }
 
     public static void main(String[] args) {
         Parser p = new Parser();
@@ -61,15 +119,28 @@ public class Parser {
 
     private void reset(String newStr) {
         index = 0;
+        buffer_start = 0;
+        token_start = 0;
+        reader = null;
         incomplete_clause = true;
         curr_node = new BracketNode();
-        bracket_nodes_stack = new Stack<>();
+        // buffers are kept across calls so that parsing many short formulas allocates little
+        if (bracket_nodes_stack == null) bracket_nodes_stack = new ArrayDeque<>();
+        else bracket_nodes_stack.clear();
         unprocessed_str = newStr;
         prev_token = Token.START;
-        chars = unprocessed_str == null ? null : unprocessed_str.toCharArray();
-        literalPool = new HashSet<>();
+        length = unprocessed_str == null ? 0 : unprocessed_str.length();
+        if (chars == null || chars.length < length) chars = new char[length];
+        if (unprocessed_str != null) unprocessed_str.getChars(0, length, chars, 0);
+        if (literalPool == null) literalPool = new HashSet<>();
+        else literalPool.clear();
         literals = null;
+        variables = new VariableTable();
         evaluated_node = null;
+        if (mode == Mode.PRECEDENCE_CLIMBING) {
+            if (tree_builder == null) tree_builder = new PrecedenceTreeBuilder();
+            else tree_builder.clear();
+        }
     }
 
     public Node getTree() {
@@ -93,13 +164,54 @@ public class Parser {
         return literals;
     }
 
+    /**
+     * @return the variable table of the evaluated formula, LitNode.getIndex of the tree refers to it
+     */
+    public VariableTable getVariableTable() {
+        ensureEvaluated();
+        return variables;
+    }
+
     public Parser evaluate(String s) throws InvalidFormulaException {
         if (s == null) {
             throw new InvalidFormulaException("Propositional Logic formula can't be null");
         }
         reset(s);
-        while (index < chars.length) {
-            char curr_char = chars[index];
+        return parse();
+    }
+
+    /**
+     * Same as evaluate(String) but the formula is read incrementally through a fixed size buffer,
+     * so the input is never held in memory as a whole. The reader is not closed.
+     * Error messages only show the text around the error.
+     *
+     * @throws UncheckedIOException if the reader throws IOException
+     */
+    public Parser evaluate(Reader reader) throws InvalidFormulaException {
+        if (reader == null) {
+            throw new InvalidFormulaException("Propositional Logic formula reader can't be null");
+        }
+        reset(null);
+        if (chars.length < stream_buffer_size) chars = new char[stream_buffer_size];
+        this.reader = reader;
+        return parse();
+    }
+
+    /**
+     * Same as evaluate(Reader) for a UTF-8 encoded formula, the channel is not closed
+     */
+    public Parser evaluate(ReadableByteChannel channel) throws InvalidFormulaException {
+        if (channel == null) {
+            throw new InvalidFormulaException("Propositional Logic formula channel can't be null");
+        }
+        return evaluate(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), stream_buffer_size));
+    }
+
+    private Parser parse() {
+        int c;
+        while ((c = charAt(index)) >= 0) {
+            char curr_char = (char) c;
+            token_start = index;
             if (curr_char == ' ') {
                 index++;
                 continue;
@@ -130,59 +242,228 @@ public class Parser {
                     if (Character.isLetter(curr_char)) {
                         handleCharacter();
                     } else {
-                        handle_error(String.format("Invalid character: \"%s\"", curr_char));
+                        handle_error(String.format("%s: \"%s\"", error_messages[ERROR_INVALID_CHARACTER], curr_char));
                     }
                     break;
             }  // switch
         } // while
 
         if (prev_token == Token.START) {
-            handle_error("Propositional logic formula can't be empty");
+            handle_error(error_messages[ERROR_EMPTY]);
         }
         if (incomplete_clause) {
-            handle_error("Incomplete clause");
+            handle_error(error_messages[ERROR_INCOMPLETE_CLAUSE]);
         }
-        if (!bracket_nodes_stack.empty()) {
-            handle_error("Unclosed opening bracket");
+        if (!bracket_nodes_stack.isEmpty()) {
+            handle_error(error_messages[ERROR_UNCLOSED_BRACKET]);
         }
-        evaluated_node = curr_node.getHead();  // remove outer bracket
+        evaluated_node = tree_builder == null ?
+                curr_node.getHead() :  // remove outer bracket
+                tree_builder.build();
         literals = literalPool.toArray(new Literal[0]);
         return this;
     }
 
+    /**
+     * Run only the token checks of evaluate, no tree or literal is created and nothing is allocated
+     * A formula passes iff evaluate reports no InvalidFormulaException for it
+     *
+     * @return VALID, or the error code in the high 32 bits and the offset of getOffset in the low 32 bits,
+     * see getErrorCode and getErrorOffset
+     * @throws InvalidFormulaException if the formula is null, same as evaluate
+     */
+    public static long validate(CharSequence formula) throws InvalidFormulaException {
+        if (formula == null) {
+            throw new InvalidFormulaException("Propositional Logic formula can't be null");
+        }
+        int length = formula.length();
+        int depth = 0;  // open brackets
+        Token prev = Token.START;
+        boolean incomplete = true;
+        int i = 0;
+        while (i < length) {
+            char c = formula.charAt(i);
+            switch (c) {
+                case ' ':
+                    i++;
+                    break;
+                case '~':
+                    if (prev == Token.LITERAL || prev == Token.RBRACKET) return error(ERROR_NEGATION_NOT_ALLOWED, i);
+                    prev = Token.NEG;
+                    incomplete = true;
+                    i++;
+                    break;
+                case '(':
+                    if (prev == Token.LITERAL || prev == Token.RBRACKET) {
+                        return error(ERROR_LEFT_BRACKET_NOT_ALLOWED, i);
+                    }
+                    prev = Token.LBRACKET;
+                    incomplete = true;
+                    depth++;
+                    i++;
+                    break;
+                case ')':
+                    if (prev != Token.LITERAL && prev != Token.RBRACKET) {
+                        return error(ERROR_RIGHT_BRACKET_NOT_ALLOWED, i);
+                    }
+                    if (depth == 0) return error(ERROR_UNOPENED_BRACKET, i);
+                    prev = Token.RBRACKET;
+                    incomplete = false;
+                    depth--;
+                    i++;
+                    break;
+                case '/':
+                case '\\':
+                case '<':
+                case '-':
+                    // same as checkConnective, the dash of <-> is skipped with its <
+                    if (prev != Token.LITERAL && prev != Token.RBRACKET) {
+                        return error(ERROR_CONNECTIVE_NOT_ALLOWED, i);
+                    }
+                    char next = i + 1 < length ? formula.charAt(i + 1) : 0;
+                    if (c == '/' && next != BACKWARD_SLASH) return error(ERROR_EXPECTED_AND, i);
+                    if (c == '\\' && next != FORWARD_SLASH) return error(ERROR_EXPECTED_OR, i);
+                    if (c == '-' && next != GREATER_THAN) return error(ERROR_EXPECTED_IMPLIES, i);
+                    if (c == '<' && (next != DASH || i + 2 >= length || formula.charAt(i + 2) != GREATER_THAN)) {
+                        return error(ERROR_EXPECTED_IFF, i);
+                    }
+                    prev = Token.CONNECTIVE;
+                    incomplete = true;
+                    i += c == '<' ? 3 : 2;
+                    break;
+                default:
+                    if (!Character.isLetter(c)) return error(ERROR_INVALID_CHARACTER, i);
+                    if (prev == Token.RBRACKET || prev == Token.LITERAL) return error(ERROR_LITERAL_NOT_ALLOWED, i);
+                    while (i < length && Character.isLetter(formula.charAt(i))) i++;
+                    prev = Token.LITERAL;
+                    incomplete = false;
+                    break;
+            }
+        }
+        if (prev == Token.START) return error(ERROR_EMPTY, i);
+        if (incomplete) return error(ERROR_INCOMPLETE_CLAUSE, i);
+        if (depth != 0) return error(ERROR_UNCLOSED_BRACKET, i);
+        return VALID;
+    }
+
+    private static long error(int code, int offset) {
+        return (long) code << 32 | offset;
+    }
+
+    /**
+     * @return error code of a validate result, VALID if there is no error
+     */
+    public static int getErrorCode(long result) {
+        return (int) (result >>> 32);
+    }
+
+    /**
+     * @return offset of the invalid char of a validate result, same as InvalidFormulaException.getOffset
+     */
+    public static int getErrorOffset(long result) {
+        return (int) result;
+    }
+
+    /**
+     * @return message of the given error code, the start of the InvalidFormulaException message of evaluate
+     */
+    public static String getErrorMessage(int code) {
+        if (code < 0 || code >= error_messages.length) {
+            throw new IllegalArgumentException(String.format("Unknown error code: %s", code));
+        }
+        return error_messages[code];
+    }
+
     public String toString() {
-        return unprocessed_str;
+        if (unprocessed_str != null) return unprocessed_str;
+        return evaluated_node == null ? "" : evaluated_node.toString();  // streamed input is not kept
+    }
+
+    /**
+     * @return char at the given index of the input, -1 after the end
+     */
+    private int charAt(int i) {
+        int position = i - buffer_start;
+        return position < length ? chars[position] : refill(i);
+    }
+
+    // read more of the streamed input, the current token and the text before it for error messages stay in the buffer
+    private int refill(int i) {
+        try {
+            while (reader != null && i - buffer_start >= length) {
+                int keep_from = Math.max(buffer_start, Math.min(token_start, index) - error_context_size);
+                int kept = buffer_start + length - keep_from;
+                if (kept == chars.length) {
+                    chars = Arrays.copyOf(chars, chars.length * 2);  // a literal longer than the buffer
+                } else if (keep_from > buffer_start) {
+                    System.arraycopy(chars, keep_from - buffer_start, chars, 0, kept);
+                    buffer_start = keep_from;
+                    length = kept;
+                }
+                int read = reader.read(chars, length, chars.length - length);
+                if (read < 0) reader = null;
+                else length += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int position = i - buffer_start;
+        return position < length ? chars[position] : -1;
     }
 
     private void handle_error(String msg) {
+        int offset = index;
         StringBuilder sb = new StringBuilder();
-        sb.append(msg).append(System.lineSeparator()).append(unprocessed_str).append(System.lineSeparator());
+        sb.append(msg).append(System.lineSeparator());
+        if (unprocessed_str != null) {
+            sb.append(unprocessed_str);
+        } else {  // only part of a streamed input is in memory, show the text around the error
+            int from = Math.max(buffer_start, index - error_context_size);
+            int to = Math.min(buffer_start + length, index + error_context_size);
+            sb.append(chars, from - buffer_start, to - from);
+            index -= from;
+        }
+        sb.append(System.lineSeparator());
         while (--index > 0) sb.append(' ');
         sb.append(String.format("^^%n"));
-        throw new InvalidFormulaException(sb.toString());
+        throw new InvalidFormulaException(sb.toString(), offset);
     }
 
-    private void insertLiteralToken(String literal_str) {
-        Literal literal = Literal.newInstance(literal_str);
-        curr_node.insert(new LitNode(literal));
+    // literal is chars[start, end), looked up without creating a String once it is known
+    private void insertLiteralToken(int start, int end) {
+        Literal literal = Literal.newInstance(chars, start - buffer_start, end - start);
+        boolean is_variable = !literal.isTautology() && !literal.isContradiction();
+        LitNode node = new LitNode(literal, is_variable ? variables.add(literal.getRaw()) : -1);
+        if (tree_builder != null) tree_builder.literal(node);
+        else curr_node.insert(node);
         literalPool.add(literal);
     }
 
-    private void insertConnectiveToken(String con) {
-        curr_node.insert(new ConnNode(Connective.newInstance(con)));
+    private void insertConnectiveToken(Connective.Type type) {
+        Connective connective = Connective.getInstance(type);
+        if (tree_builder != null) tree_builder.connective(connective);
+        else curr_node.insert(new ConnNode(connective));
     }
 
     private void insertNegationToken() {
-        curr_node.insert(new NegNode(Negation.newInstance(String.valueOf(NEG))));
+        Negation negation = Negation.getInstance();
+        if (tree_builder != null) tree_builder.negation(negation);
+        else curr_node.insert(new NegNode(negation));
     }
 
     private void insertLeftBracketToken() {
         bracket_nodes_stack.push(curr_node);
-        curr_node = new BracketNode();
+        if (tree_builder != null) tree_builder.leftBracket();  // the stack only checks brackets, no new node needed
+        else curr_node = new BracketNode();
     }
 
     private void insertRightBracketToken() {
         // box_nodes_stack should already be checked is not empty by handle right bracket
+        if (tree_builder != null) {
+            bracket_nodes_stack.pop();  // the stack is still used for checking brackets
+            tree_builder.rightBracket();
+            return;
+        }
         BracketNode old = curr_node;
         curr_node = bracket_nodes_stack.pop();
         old.close();
@@ -191,7 +472,7 @@ public class Parser {
 
     private void handleNegation() {
         if (prev_token == Token.LITERAL || prev_token == Token.RBRACKET) {
-            handle_error("Negation not allowed here");
+            handle_error(error_messages[ERROR_NEGATION_NOT_ALLOWED]);
         }
         prev_token = Token.NEG;
         incomplete_clause = true;
@@ -201,7 +482,7 @@ public class Parser {
 
     private void handleLeftBracket() {
         if (prev_token == Token.LITERAL || prev_token == Token.RBRACKET) {
-            handle_error("Left bracket not allowed here");
+            handle_error(error_messages[ERROR_LEFT_BRACKET_NOT_ALLOWED]);
         }
         prev_token = Token.LBRACKET;
         incomplete_clause = true;
@@ -211,10 +492,10 @@ public class Parser {
 
     private void handleRightBracket() {
         if (prev_token != Token.LITERAL && prev_token != Token.RBRACKET) {
-            handle_error("Right bracket not allowed here");
+            handle_error(error_messages[ERROR_RIGHT_BRACKET_NOT_ALLOWED]);
         }
-        if (bracket_nodes_stack.empty() || bracket_nodes_stack.peek().isClosed()) {
-            handle_error("Unopened closing bracket");
+        if (bracket_nodes_stack.isEmpty() || bracket_nodes_stack.peek().isClosed()) {
+            handle_error(error_messages[ERROR_UNOPENED_BRACKET]);
         }
         prev_token = Token.RBRACKET;
         incomplete_clause = false;
@@ -224,75 +505,82 @@ public class Parser {
 
     private void checkConnective(Token prev) {
         if (prev != Token.LITERAL && prev != Token.RBRACKET) {
-            handle_error("Connective not allowed here");
+            handle_error(error_messages[ERROR_CONNECTIVE_NOT_ALLOWED]);
         }
     }
 
     private void handleForwardSlash() {
         checkConnective(prev_token);
-        if (index + 1 >= chars.length || chars[index + 1] != BACKWARD_SLASH) {  // must be AND /\
-            handle_error(String.format("Invalid character: \"%s\", do you mean %s?", FORWARD_SLASH, AND));
+        if (charAt(index + 1) != BACKWARD_SLASH) {  // must be AND /\
+            handle_error(error_messages[ERROR_EXPECTED_AND]);
         } else {
             prev_token = Token.CONNECTIVE;
             incomplete_clause = true;
-            insertConnectiveToken(AND);
+            insertConnectiveToken(Connective.Type.AND);
             index += 2;
         }
     }
 
     private void handleBackwardSlash() {
         checkConnective(prev_token);
-        if (index + 1 >= chars.length || chars[index + 1] != '/') {  // must be OR \/
-            handle_error(String.format("Invalid character: \"%s\", do you mean \"%s\" or \"%s\"?",
-                    BACKWARD_SLASH, OR, AND));
+        if (charAt(index + 1) != '/') {  // must be OR \/
+            handle_error(error_messages[ERROR_EXPECTED_OR]);
         } else {
             prev_token = Token.CONNECTIVE;
             incomplete_clause = true;
-            insertConnectiveToken(OR);
+            insertConnectiveToken(Connective.Type.OR);
             index += 2;
         }
     }
 
     private void handleDash() {
         // if dash followed by <, then it is already checked that we can have connective
-        if (index - 1 >= 0 && chars[index - 1] != LESS_THAN) {
+        if (index == 0 || charAt(index - 1) != LESS_THAN) {
             checkConnective(prev_token);
         }
-        if (index + 1 >= chars.length || chars[index + 1] != GREATER_THAN) {  // must be ->
-            handle_error(String.format("Invalid character: \"%s\", do you mean %s?", DASH, IMPLIES));
+        if (charAt(index + 1) != GREATER_THAN) {  // must be ->
+            handle_error(error_messages[ERROR_EXPECTED_IMPLIES]);
         }
         prev_token = Token.CONNECTIVE;
         incomplete_clause = true;
-        insertConnectiveToken(IMPLIES);
+        insertConnectiveToken(Connective.Type.IMPLIES);
         index += 2;
     }
 
     private void handleLessThan() {
         checkConnective(prev_token);
         // must be <->
-        if (index + 2 >= chars.length || (chars[index + 1] != DASH || chars[index + 2] != GREATER_THAN)) {
-            handle_error(String.format("Invalid character: \"%s\", do you mean %s?", LESS_THAN, IFF));
+        if (charAt(index + 1) != DASH || charAt(index + 2) != GREATER_THAN) {
+            handle_error(error_messages[ERROR_EXPECTED_IFF]);
         } else {
             prev_token = Token.CONNECTIVE;
             incomplete_clause = true;
-            insertConnectiveToken(IFF);
+            insertConnectiveToken(Connective.Type.IFF);
             index+=3;
         }
     }
 
     private void handleCharacter() {
         if (prev_token == Token.RBRACKET || prev_token == Token.LITERAL) {
-            handle_error("Literal not allowed here");
+            handle_error(error_messages[ERROR_LITERAL_NOT_ALLOWED]);
         }
-        StringBuilder sb = new StringBuilder();
-        while (index < chars.length && Character.isLetter(chars[index])) {
-            sb.append(chars[index++]);
+        int start = index;
+        while (Character.isLetter(charAt(index))) {
+            index++;
         }
         incomplete_clause = false;
-        insertLiteralToken(sb.toString());
+        insertLiteralToken(start, index);
         prev_token = Token.LITERAL;
     }
 
+    /**
+     * How the tree is built from the checked tokens, both modes give equal trees and the same errors
+     */
+    public enum Mode {
+        INSERTION,  // insert every token into the tree built so far
+        PRECEDENCE_CLIMBING  // shunting-yard with explicit stacks, linear time and no recursion
+    }
+
     private enum Token {
         NEG, RBRACKET, LBRACKET, LITERAL, CONNECTIVE, START  // null does not match anything
     }
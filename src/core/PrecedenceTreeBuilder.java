@@ -0,0 +1,95 @@
+package core;
+
+import core.symbols.Connective;
+import core.symbols.Negation;
+import core.symbols.Symbol;
+import core.trees.BracketNode;
+import core.trees.ConnNode;
+import core.trees.LitNode;
+import core.trees.NegNode;
+import core.trees.Node;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Shunting-yard tree builder for Parser.Mode.PRECEDENCE_CLIMBING
+ *
+ * Tokens must already be checked by the Parser, this only arranges them into the same tree as the insertion
+ * algorithm: lower precedence binds tighter, connectives of the same precedence are left associative
+ * and brackets are kept as closed BracketNode.
+ *
+ * Every token is pushed and popped at most once and nothing recurses, so it runs in O(n) for any formula.
+ */
+class PrecedenceTreeBuilder {
+
+    private final Deque<Node> operands = new ArrayDeque<>();
+    private final Deque<Symbol> operators = new ArrayDeque<>();  // Connective or Negation
+    private int[] brackets = new int[16];  // size of operators at each open bracket, not boxed
+    private int bracket_count;
+
+    // forget the previous formula but keep the buffers
+    void clear() {
+        operands.clear();
+        operators.clear();
+        bracket_count = 0;
+    }
+
+    void literal(LitNode node) {
+        operands.push(node);
+    }
+
+    void negation(Negation negation) {
+        operators.push(negation);  // prefix, applied when its operand is complete
+    }
+
+    void connective(Connective connective) {
+        int floor = bracket_count == 0 ? 0 : brackets[bracket_count - 1];
+        while (operators.size() > floor && getPrecedence(operators.peek()) <= connective.getPrecedence()) {
+            reduce();
+        }
+        operators.push(connective);
+    }
+
+    void leftBracket() {
+        if (bracket_count == brackets.length) brackets = Arrays.copyOf(brackets, bracket_count * 2);
+        brackets[bracket_count++] = operators.size();
+    }
+
+    void rightBracket() {
+        int floor = brackets[--bracket_count];
+        while (operators.size() > floor) {
+            reduce();
+        }
+        operands.push(BracketNode.bracket(operands.pop()));
+    }
+
+    Node build() {
+        while (!operators.isEmpty()) {
+            reduce();
+        }
+        Node root = operands.pop();
+        if (!operands.isEmpty() || bracket_count != 0) {
+            throw new IllegalStateException("Incomplete formula left in tree builder");
+        }
+        return root;
+    }
+
+    private static int getPrecedence(Symbol operator) {
+        return operator instanceof Connective ?
+                ((Connective) operator).getPrecedence() :
+                Symbol.NEGATION_PRECEDENCE;
+    }
+
+    private void reduce() {
+        Symbol operator = operators.pop();
+        if (operator instanceof Connective) {
+            Node right = operands.pop();
+            Node left = operands.pop();
+            operands.push(ConnNode.connect(((Connective) operator).getType(), left, right));
+        } else {
+            operands.push(NegNode.negate(operands.pop()));
+        }
+    }
+}
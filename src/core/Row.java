@@ -0,0 +1,80 @@
+package core;
+
+/**
+ * A row of a truth table, see TruthTable.rows
+ *
+ * The assignment is kept as primitive bits: bit i is the truth value of the i-th variable
+ * of TruthTable.getVariableNames, tautology and contradiction are not variables.
+ */
+public class Row {
+
+    private final long index;
+    private final long assignment;
+    private final int variable_count;
+    private final boolean value;
+
+    Row(long index, long assignment, int variable_count, boolean value) {
+        this.index = index;
+        this.assignment = assignment;
+        this.variable_count = variable_count;
+        this.value = value;
+    }
+
+    /**
+     * @return position of this row in the truth table, same order as TruthTable.generate
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * @return bit i is the truth value of variable i
+     */
+    public long getAssignment() {
+        return assignment;
+    }
+
+    public int getVariableCount() {
+        return variable_count;
+    }
+
+    /**
+     * @return truth value of the given variable in this row
+     */
+    public boolean getValue(int variable) {
+        if (variable < 0 || variable >= variable_count) {
+            throw new IndexOutOfBoundsException(String.format("Variable %s out of bounds for %s variables",
+                    variable, variable_count));
+        }
+        return (assignment >>> variable & 1) == 1;
+    }
+
+    /**
+     * @return truth value of the formula in this row
+     */
+    public boolean isTrue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Row)) return false;
+        Row row = (Row) other;
+        return index == row.index && assignment == row.assignment
+                && variable_count == row.variable_count && value == row.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(index) * 31 + (value ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append(index).append(':');
+        for (int i = 0; i < variable_count; i++) {
+            sb.append(getValue(i) ? 'T' : 'F');
+        }
+        return sb.append(" -> ").append(value).toString();
+    }
+}
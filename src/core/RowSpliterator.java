@@ -0,0 +1,69 @@
+package core;
+
+import core.evaluation.Program;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Lazily evaluate the rows [index, end) of a truth table, one row per tryAdvance
+ * A compiled program is evaluated on primitive assignments, so split halves can run in parallel
+ */
+class RowSpliterator implements Spliterator<Row> {
+
+    private final static long min_split_size = 1 << 10;
+
+    private final Program program;
+    private final int variable_count;
+    private long index;
+    private final long end;
+
+    RowSpliterator(Program program, long index, long end) {
+        this.program = program;
+        this.variable_count = program.getSlotCount();
+        this.index = index;
+        this.end = end;
+    }
+
+    // variable j is true iff bit (variable_count - 1 - j) of the row index is 0
+    static long toAssignment(long row, int variable_count) {
+        return variable_count == 0 ? 0 : Long.reverse(~row) >>> Long.SIZE - variable_count;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Row> action) {
+        if (index >= end) return false;
+        long assignment = toAssignment(index, variable_count);
+        action.accept(new Row(index, assignment, variable_count, program.evaluate(assignment)));
+        index++;
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Row> action) {
+        for (; index < end; index++) {
+            long assignment = toAssignment(index, variable_count);
+            action.accept(new Row(index, assignment, variable_count, program.evaluate(assignment)));
+        }
+    }
+
+    @Override
+    public Spliterator<Row> trySplit() {
+        long size = end - index;
+        if (size < min_split_size * 2) return null;
+        long middle = index + size / 2;
+        RowSpliterator prefix = new RowSpliterator(program, index, middle);
+        index = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+}
@@ -1,10 +1,41 @@
 package core;
 
+import core.evaluation.Assignment;
+import core.evaluation.BitColumns;
+import core.evaluation.IncrementalEvaluator;
+import core.evaluation.Program;
+import core.evaluation.VariableTable;
+import core.sinks.RowSink;
+import core.sinks.TextRowSink;
 import core.symbols.Literal;
 import core.trees.Node;
 
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class TruthTable extends Parser {
 
@@ -12,9 +43,24 @@ public class TruthTable extends Parser {
     private static final int tree_template_size = 15;
     private final static String literal_truth_value_template = "|%" + literal_template_size + "s";
     private final static String tree_truth_value_template = "|%" + tree_template_size + "s|";
+    // cells are formatted once instead of per row
+    private final static String literal_true_cell = String.format(literal_truth_value_template, true);
+    private final static String literal_false_cell = String.format(literal_truth_value_template, false);
+    private final static String tree_true_cell = String.format(tree_truth_value_template, true);
+    private final static String tree_false_cell = String.format(tree_truth_value_template, false);
+    private final static String literal_separator_cell =
+            String.format(literal_truth_value_template, "-".repeat(literal_template_size));
+    private final static String tree_separator_cell =
+            String.format(tree_truth_value_template, "-".repeat(tree_template_size));
+    private static final int bit_block_words = 1024;  // 65536 rows per bit sliced block
+    private static final int max_bit_variables = 36;  // 2^36 rows is the most a long[] can hold
+    private static final int parallel_leaf_bits = 12;  // at most 4096 rows per fork/join leaf task
+    private static final int stream_buffer_size = 1 << 16;  // characters buffered before writing to channel
+    private static final long default_checkpoint_interval = 1L << 24;
     private Literal[] literals;
+    private int[] indexes;  // index of each literal in the variable table, -1 for tautology/contradiction
     private Node tree;
-    private StringBuilder curr_truth_table_builder;
+    private long true_row_count;
 
     public TruthTable() {
 
@@ -41,25 +87,439 @@ public class TruthTable extends Parser {
     }
 
     public String generate() {
+        StringBuilder sb = new StringBuilder();
+        generate(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Same as generate but each row is appended to out as soon as it is evaluated,
+     * so memory use does not grow with the number of rows
+     *
+     * @throws UncheckedIOException if out throws IOException
+     */
+    public void generate(Appendable out) {
+        ensureEvaluated();
+        literals = getLiterals();
+        tree = getTree();
+        VariableTable variable_table = getVariableTable();
+        indexes = new int[literals.length];
+        for (int i = 0; i < literals.length; i++) {
+            indexes[i] = variable_table.indexOf(literals[i].getRaw());
+        }
+        true_row_count = 0;
+        try {
+            out.append(getSeparator()).append(getHeader()).append(getSeparator());
+            generate(0, new Assignment(variable_table), out);
+            out.append(getSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Same as generate(Appendable) but encode the rows as UTF-8 into the given channel through a bounded buffer
+     * The channel is not closed
+     */
+    public void generate(WritableByteChannel channel) {
+        Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), stream_buffer_size);
+        generate(writer);
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Same as generate but rows are evaluated by the compiled program and handed to sink as primitive bits,
+     * column i is the i-th literal of getLiterals, including tautology and contradiction
+     *
+     * @throws UncheckedIOException if sink throws IOException
+     */
+    public void generate(RowSink sink) {
+        SinkRows rows = getSinkRows();
+        true_row_count = 0;
+        try {
+            sink.begin(rows.columns);
+            for (long row = 0; row < rows.count; row++) {
+                long assignment = RowSpliterator.toAssignment(row, rows.variable_count);
+                boolean value = rows.program.evaluate(assignment);
+                if (value) true_row_count++;
+                sink.row(rows.getColumns(assignment), value);
+            }
+            sink.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Same as generate(Path, Path, Function, long) with the text sink and a checkpoint every 2^24 rows
+     */
+    public void generate(Path output, Path checkpoint) {
+        generate(output, checkpoint, TextRowSink::new, default_checkpoint_interval);
+    }
+
+    /**
+     * Same as generate(RowSink) but the rows are written into output and progress is saved into checkpoint
+     * every checkpoint_interval rows. If checkpoint exists the enumeration resumes from it: output is truncated
+     * to the saved offset and the rows after the saved cursor are appended, so the result is identical
+     * to an uninterrupted run. The checkpoint is deleted when the table is complete.
+     *
+     * @param sink a new sink writing into the given stream, the header it writes is dropped when resuming
+     * @throws IllegalStateException if checkpoint belongs to another formula or output is shorter than saved
+     * @throws UncheckedIOException  if reading or writing a file fails
+     */
+    public void generate(Path output, Path checkpoint, Function<OutputStream, RowSink> sink,
+                         long checkpoint_interval) {
+        if (checkpoint_interval <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid checkpoint interval: %s", checkpoint_interval));
+        }
+        SinkRows rows = getSinkRows();
+        String formula = getTree().toString();
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            Checkpoint saved = Files.exists(checkpoint) ? Checkpoint.read(checkpoint) : null;
+            if (saved != null && !saved.matches(formula, rows.columns)) {
+                throw new IllegalStateException(String.format("Checkpoint %s is not for formula: %s", checkpoint, formula));
+            }
+            long first_row = saved == null ? 0 : saved.getRow();
+            long offset = saved == null ? 0 : saved.getOutputOffset();
+            if (channel.size() < offset) {
+                throw new IllegalStateException(String.format("Output %s is shorter than checkpoint offset %s",
+                        output, offset));
+            }
+            channel.truncate(offset).position(offset);
+            true_row_count = saved == null ? 0 : saved.getTrueRowCount();
+
+            // the header is only written by a fresh run, a resumed sink still needs begin to set up its columns
+            boolean[] discard = {saved != null};
+            OutputStream out = new FilterOutputStream(Channels.newOutputStream(channel)) {
+                @Override
+                public void write(int b) throws IOException {
+                    if (!discard[0]) this.out.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    if (!discard[0]) this.out.write(b, off, len);
+                }
+            };
+            RowSink row_sink = sink.apply(out);
+            row_sink.begin(rows.columns);
+            row_sink.flush();
+            discard[0] = false;
+
+            for (long row = first_row; row < rows.count; row++) {
+                if (row % checkpoint_interval == 0 && row != first_row) {
+                    row_sink.flush();
+                    channel.force(false);
+                    new Checkpoint(formula, rows.columns, row, true_row_count, channel.position()).write(checkpoint);
+                }
+                long assignment = RowSpliterator.toAssignment(row, rows.variable_count);
+                boolean value = rows.program.evaluate(assignment);
+                if (value) true_row_count++;
+                row_sink.row(rows.getColumns(assignment), value);
+            }
+            row_sink.end();
+            channel.force(false);
+            Files.deleteIfExists(checkpoint);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Same as generate but the rows are split by fixed prefix variables and evaluated on the common pool
+     */
+    public String generateParallel() {
+        return generateParallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Same as generate but the rows are split by fixed prefix variables and evaluated on the given pool
+     * Each task evaluates a compiled program on its own assignment, so no literal is assigned
+     */
+    public String generateParallel(ForkJoinPool pool) {
         ensureEvaluated();
         literals = getLiterals();
         tree = getTree();
-        curr_truth_table_builder = new StringBuilder();
-        generate(0);
-        return getSeparator()
-                .append(getHeader())
-                .append(getSeparator())
-                .append(curr_truth_table_builder)
-                .append(getSeparator())
-                .toString();
+        Literal[] variables = getVariables();
+        if (variables.length >= Long.SIZE) {
+            throw new IllegalStateException(String.format("Too many literals for truth table: %s", variables.length));
+        }
+        RowsTask task = new RowsTask(literals, getPositions(variables), tree.compile(variables),
+                0, variables.length);
+        Rows rows = pool.invoke(task);
+        true_row_count = rows.true_count;
+        StringBuilder sb = getSeparator().append(getHeader()).append(getSeparator());
+        for (CharSequence part : rows.parts) {
+            sb.append(part);
+        }
+        return sb.append(getSeparator()).toString();
+    }
+
+    /**
+     * Same as generate but the rows are in Gray code order, see generateGrayCode(Appendable)
+     */
+    public String generateGrayCode() {
+        StringBuilder sb = new StringBuilder();
+        generateGrayCode(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Enumerate the rows in Gray code order, so that consecutive rows differ in exactly one literal
+     * Only the ancestors of the flipped literal are re-evaluated, see IncrementalEvaluator
+     *
+     * @throws UncheckedIOException if out throws IOException
+     */
+    public void generateGrayCode(Appendable out) {
+        ensureEvaluated();
+        literals = getLiterals();
+        tree = getTree();
+        Literal[] variables = getVariables();
+        if (variables.length >= Long.SIZE) {
+            throw new IllegalStateException(String.format("Too many literals for truth table: %s", variables.length));
+        }
+        int[] positions = getPositions(variables);
+        int variable_count = variables.length;
+        long all_true = variable_count == 0 ? 0 : -1L >>> Long.SIZE - variable_count;
+        IncrementalEvaluator evaluator = new IncrementalEvaluator(tree.compile(variables), all_true);
+        true_row_count = 0;
+        try {
+            out.append(getSeparator()).append(getHeader()).append(getSeparator());
+            for (long i = 0, rows = 1L << variable_count; i < rows; i++) {
+                // row i ^ (i >> 1) differs from the previous one by the lowest set bit of i
+                // bit b of the row number is variable (variable_count - 1 - b)
+                boolean value = i == 0 ?
+                        evaluator.getValue() :
+                        evaluator.flip(variable_count - 1 - Long.numberOfTrailingZeros(i));
+                if (value) true_row_count++;
+                StringBuilder row = new StringBuilder();
+                appendRow(row, literals, positions, evaluator.getAssignment(), value);
+                out.append(row);
+            }
+            out.append(getSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return number of true rows in the last generated truth table
+     */
+    public long getTrueRowCount() {
+        return true_row_count;
+    }
+
+    /**
+     * Bit sliced evaluation of the whole truth table, 64 rows per word
+     *
+     * @return the truth value column, row r (same order as generate) is bit r % 64 of word r / 64
+     */
+    public long[] generateBits() {
+        ensureEvaluated();
+        int variable_count = getVariables().length;
+        if (variable_count > max_bit_variables) {
+            throw new IllegalStateException(String.format("Too many literals for bit sliced truth table: %s",
+                    variable_count));
+        }
+        return generateBits(0, (int) Math.max(1, 1L << variable_count >>> 6));
+    }
+
+    /**
+     * Bit sliced evaluation of a range of the truth table, so a table too large for one array
+     * can be evaluated in parts
+     *
+     * @return words [first_word, first_word + word_count) of the truth value column of generateBits()
+     */
+    public long[] generateBits(long first_word, int word_count) {
+        ensureEvaluated();
+        Literal[] variables = getVariables();
+        if (variables.length >= Long.SIZE - 1) {
+            throw new IllegalStateException(String.format("Too many literals for truth table: %s", variables.length));
+        }
+        long rows = 1L << variables.length;
+        if (first_word < 0 || word_count < 0 || first_word + word_count > Math.max(1, rows >>> 6)) {
+            throw new IndexOutOfBoundsException(String.format("Words [%s, %s) out of bounds for %s rows",
+                    first_word, first_word + word_count, rows));
+        }
+        tree = getTree();
+        long[] result = new long[word_count];
+        BitColumns columns = new BitColumns(variables, Math.max(1, Math.min(result.length, bit_block_words)));
+        long[] block = new long[columns.getWords()];
+        for (int offset = 0; offset < result.length; offset += block.length) {
+            columns.moveTo(first_word + offset);
+            tree.evaluateBits(columns, block);
+            System.arraycopy(block, 0, result, offset, Math.min(block.length, result.length - offset));
+        }
+        if (rows < Long.SIZE && result.length > 0) {
+            result[0] &= (1L << rows) - 1;  // clear bits after the last row
+        }
+        return result;
+    }
+
+    /**
+     * @return the true rows as a bitmap, row r (same order as generate) is bit r, nothing is formatted
+     */
+    public BitSet getModels() {
+        return BitSet.valueOf(generateBits());
+    }
+
+    /**
+     * Count the true rows block by block with bit sliced evaluation, without keeping the result column
+     * nor formatting anything, so it also works beyond the size of generateBits
+     *
+     * @return number of true rows of the truth table
+     */
+    public long countModels() {
+        ensureEvaluated();
+        Literal[] variables = getVariables();
+        if (variables.length >= Long.SIZE - 1) {
+            throw new IllegalStateException(String.format("Too many literals for truth table: %s", variables.length));
+        }
+        tree = getTree();
+        long rows = 1L << variables.length;
+        long words = Math.max(1, rows >>> 6);
+        BitColumns columns = new BitColumns(variables, (int) Math.min(words, bit_block_words));
+        long[] block = new long[columns.getWords()];
+        long count = 0;
+        for (long first_word = 0; first_word < words; first_word += block.length) {
+            columns.moveTo(first_word);
+            tree.evaluateBits(columns, block);
+            if (rows < Long.SIZE) {
+                block[0] &= (1L << rows) - 1;  // clear bits after the last row
+            }
+            for (long word : block) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Write the result column into a memory mapped file one bit sliced block at a time,
+     * so the table never has to fit in the heap
+     *
+     * @param path      file to write, replaced if it exists
+     * @param with_rows also store the assignment of every row, 8 bytes per row
+     * @return the stored table opened for random access
+     */
+    public MappedTruthTable store(Path path, boolean with_rows) {
+        ensureEvaluated();
+        Literal[] variables = getVariables();
+        if (variables.length >= Long.SIZE - 1) {
+            throw new IllegalStateException(String.format("Too many literals for truth table: %s", variables.length));
+        }
+        tree = getTree();
+        long rows = 1L << variables.length;
+        long words = Math.max(1, rows >>> 6);
+        BitColumns columns = new BitColumns(variables, (int) Math.min(words, bit_block_words));
+        long[] block = new long[columns.getWords()];
+        long count = 0;
+        try (MappedTruthTable.Writer writer = new MappedTruthTable.Writer(path, getVariableNames(), rows, with_rows)) {
+            for (long first_word = 0; first_word < words; first_word += block.length) {
+                columns.moveTo(first_word);
+                tree.evaluateBits(columns, block);
+                if (rows < Long.SIZE) {
+                    block[0] &= (1L << rows) - 1;  // clear bits after the last row
+                }
+                for (long word : block) {
+                    count += Long.bitCount(word);
+                    writer.putResult(word);
+                }
+                if (with_rows) {
+                    long end = Math.min(rows, (first_word + block.length) * Long.SIZE);
+                    for (long row = first_word * Long.SIZE; row < end; row++) {
+                        writer.putRow(RowSpliterator.toAssignment(row, variables.length));
+                    }
+                }
+            }
+            writer.finish(count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return MappedTruthTable.open(path);
+    }
+
+    /**
+     * @return raw literals of the variables, bit i of Row.getAssignment is the truth value of the i-th one
+     */
+    public String[] getVariableNames() {
+        ensureEvaluated();
+        Literal[] variables = getVariables();
+        String[] names = new String[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            names[i] = variables[i].getRaw();
+        }
+        return names;
+    }
+
+    /**
+     * @return a lazy stream of the rows in the same order as generate, rows are only evaluated when consumed
+     * and the stream can be split for parallel processing
+     */
+    public Stream<Row> rows() {
+        return StreamSupport.stream(rowSpliterator(), false);
+    }
+
+    /**
+     * @return a lazy iterator of the rows in the same order as generate
+     */
+    public Iterator<Row> rowIterator() {
+        return Spliterators.iterator(rowSpliterator());
+    }
+
+    /**
+     * @return a lazy spliterator of the rows in the same order as generate
+     */
+    public Spliterator<Row> rowSpliterator() {
+        ensureEvaluated();
+        Literal[] variables = getVariables();
+        if (variables.length >= Long.SIZE - 1) {
+            throw new IllegalStateException(String.format("Too many literals for truth table: %s", variables.length));
+        }
+        return new RowSpliterator(getTree().compile(variables), 0, 1L << variables.length);
+    }
+
+    // literals which need assignment, in truth table order
+    private Literal[] getVariables() {
+        List<Literal> variables = new ArrayList<>();
+        for (Literal literal : getLiterals()) {
+            if (!literal.isTautology() && !literal.isContradiction()) variables.add(literal);
+        }
+        return variables.toArray(new Literal[0]);
+    }
+
+    // position of each literal in variables, -1 for tautology/contradiction
+    private int[] getPositions(Literal[] variables) {
+        int[] positions = new int[literals.length];
+        for (int i = 0, position = 0; i < literals.length; i++) {
+            boolean is_variable = position < variables.length && literals[i] == variables[position];
+            positions[i] = is_variable ? position++ : -1;
+        }
+        return positions;
+    }
+
+    // append a row where bit positions[i] of assignment is the raw truth value of literals[i]
+    private static void appendRow(StringBuilder sb, Literal[] literals, int[] positions, long assignment,
+                                  boolean value) {
+        for (int i = 0; i < literals.length; i++) {
+            boolean literal_value = positions[i] < 0 ?
+                    literals[i].isTautology() :
+                    (assignment >>> positions[i] & 1) == 1 != literals[i].isNegated();
+            sb.append(literal_value ? literal_true_cell : literal_false_cell);
+        }
+        sb.append(value ? tree_true_cell : tree_false_cell).append(System.lineSeparator());
     }
 
     private StringBuilder getSeparator() {
         StringBuilder sb = new StringBuilder();
         for (Literal literal : literals) {
-            sb.append(String.format(literal_truth_value_template, "-".repeat(literal_template_size)));
+            sb.append(literal_separator_cell);
         }
-        sb.append(String.format(tree_truth_value_template, "-".repeat(tree_template_size))).append(System.lineSeparator());
+        sb.append(tree_separator_cell).append(System.lineSeparator());
         return sb;
     }
 
@@ -72,33 +532,134 @@ public class TruthTable extends Parser {
         return titles;
     }
 
-    private void generate(int index) {
+    // values are kept in assignment instead of the shared literals so tables can be generated concurrently
+    private void generate(int index, Assignment assignment, Appendable out) throws IOException {
         if (index == literals.length) {
-            curr_truth_table_builder.append(getCurrentRowString());
+            out.append(getCurrentRowString(assignment));
             return;
         }
         Literal curr_literal = literals[index];
         if (curr_literal.isContradiction() || curr_literal.isTautology()) {
-            generate(index + 1);
+            generate(index + 1, assignment, out);
         } else {
-            curr_literal.assign(true);
-            generate(index + 1);
-            curr_literal.assign(false);
-            generate(index + 1);
+            assignment.assign(indexes[index], true);
+            generate(index + 1, assignment, out);
+            assignment.assign(indexes[index], false);
+            generate(index + 1, assignment, out);
         }
     }
 
-    private StringBuilder getCurrentLiteralsString() {
+    private StringBuilder getCurrentLiteralsString(Assignment assignment) {
         StringBuilder sb = new StringBuilder();
-        for (Literal literal : literals) {
-            sb.append(String.format(literal_truth_value_template, literal.getTruthValue()));
+        for (int i = 0; i < literals.length; i++) {
+            sb.append(assignment.getTruthValue(literals[i], indexes[i]) ? literal_true_cell : literal_false_cell);
         }
         return sb;
     }
 
-    private StringBuilder getCurrentRowString() {
-        return getCurrentLiteralsString()
-                .append(String.format(tree_truth_value_template, tree.isTrue()))
+    private StringBuilder getCurrentRowString(Assignment assignment) {
+        boolean value = tree.isTrue(assignment);
+        if (value) true_row_count++;
+        return getCurrentLiteralsString(assignment)
+                .append(value ? tree_true_cell : tree_false_cell)
                 .append(System.lineSeparator());
     }
+
+    private SinkRows getSinkRows() {
+        ensureEvaluated();
+        literals = getLiterals();
+        Literal[] variables = getVariables();
+        if (variables.length >= Long.SIZE - 1) {
+            throw new IllegalStateException(String.format("Too many literals for truth table: %s", variables.length));
+        }
+        return new SinkRows(literals, variables, getPositions(variables), getTree().compile(variables));
+    }
+
+    // rows for a RowSink, column i is the i-th literal
+    private static class SinkRows {
+        private final String[] columns;
+        private final int[] positions;
+        private final long constant_columns;  // tautology columns are always true
+        private final long negated_columns;
+        private final Program program;
+        private final int variable_count;
+        private final long count;
+
+        private SinkRows(Literal[] literals, Literal[] variables, int[] positions, Program program) {
+            this.positions = positions;
+            this.program = program;
+            columns = new String[literals.length];
+            long constant_columns = 0;
+            long negated_columns = 0;
+            for (int i = 0; i < literals.length; i++) {
+                columns[i] = literals[i].getRaw();
+                if (literals[i].isTautology()) constant_columns |= 1L << i;
+                if (positions[i] >= 0 && literals[i].isNegated()) negated_columns |= 1L << i;
+            }
+            this.constant_columns = constant_columns;
+            this.negated_columns = negated_columns;
+            variable_count = variables.length;
+            count = 1L << variable_count;
+        }
+
+        private long getColumns(long assignment) {
+            long bits = constant_columns;
+            for (int i = 0; i < positions.length; i++) {
+                if (positions[i] >= 0) bits |= (assignment >>> positions[i] & 1) << i;
+            }
+            return bits ^ negated_columns;
+        }
+    }
+
+    // rows of a subtree of the assignment space in row order
+    private static class Rows {
+        private final List<CharSequence> parts = new ArrayList<>();
+        private long true_count;
+    }
+
+    // evaluate rows [prefix << free_bits, (prefix + 1) << free_bits), the prefix variables are fixed
+    private static class RowsTask extends RecursiveTask<Rows> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Literal[] literals;
+        private final int[] positions;
+        private final Program program;
+        private final long prefix;
+        private final int free_bits;
+
+        RowsTask(Literal[] literals, int[] positions, Program program, long prefix, int free_bits) {
+            this.literals = literals;
+            this.positions = positions;
+            this.program = program;
+            this.prefix = prefix;
+            this.free_bits = free_bits;
+        }
+
+        @Override
+        protected Rows compute() {
+            if (free_bits > parallel_leaf_bits) {
+                // fix one more variable to true (left) and false (right)
+                RowsTask left = new RowsTask(literals, positions, program, prefix << 1, free_bits - 1);
+                RowsTask right = new RowsTask(literals, positions, program, prefix << 1 | 1, free_bits - 1);
+                left.fork();
+                Rows right_rows = right.compute();
+                Rows rows = left.join();
+                rows.parts.addAll(right_rows.parts);
+                rows.true_count += right_rows.true_count;
+                return rows;
+            }
+            int variable_count = program.getSlotCount();
+            Rows rows = new Rows();
+            StringBuilder sb = new StringBuilder();
+            for (long row = prefix << free_bits, end = prefix + 1 << free_bits; row < end; row++) {
+                long assignment = RowSpliterator.toAssignment(row, variable_count);
+                boolean value = program.evaluate(assignment);
+                if (value) rows.true_count++;
+                appendRow(sb, literals, positions, assignment, value);
+            }
+            rows.parts.add(sb);
+            return rows;
+        }
+    }
 }
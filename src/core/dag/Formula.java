@@ -0,0 +1,145 @@
+package core.dag;
+
+import core.symbols.Symbol;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Immutable node of a formula DAG, created and shared by a FormulaFactory
+ *
+ * A factory never creates two structurally equal formulas, so equality is identity and
+ * identical subformulas are a single node however often they appear.
+ * Formulas of different factories are never equal.
+ */
+public final class Formula {
+
+    public enum Type {
+        TRUE, FALSE, VARIABLE, NOT, AND, OR, IMPLIES, IFF
+    }
+
+    private final Type type;
+    private final Formula left;  // operand of NOT, left operand of connectives, null otherwise
+    private final Formula right;  // right operand of connectives, null otherwise
+    private final String variable;  // raw literal of VARIABLE, null otherwise
+    private final int id;  // unique in its factory, operands always have smaller ids
+
+    Formula(Type type, Formula left, Formula right, String variable, int id) {
+        this.type = type;
+        this.left = left;
+        this.right = right;
+        this.variable = variable;
+        this.id = id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return operand of NOT or left operand of a connective, null for constants and variables
+     */
+    public Formula getLeft() {
+        return left;
+    }
+
+    /**
+     * @return right operand of a connective, null otherwise
+     */
+    public Formula getRight() {
+        return right;
+    }
+
+    /**
+     * @return raw literal of a VARIABLE, null otherwise
+     */
+    public String getVariable() {
+        return variable;
+    }
+
+    /**
+     * @return number of this formula in its factory, operands always have smaller ids
+     */
+    public int getId() {
+        return id;
+    }
+
+    public boolean isConnective() {
+        return right != null;
+    }
+
+    @Override
+    public int hashCode() {
+        // consistent with identity, a structural hash repeats along chains and degrades the memo maps
+        return id * 0x9E3779B9;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other;
+    }
+
+    /**
+     * @return the formula string of this node, shared subformulas are written at every occurrence
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        Deque<Object> pending = new ArrayDeque<>();  // formulas still to write, anything else is appended as it is
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            Object token = pending.pop();
+            if (!(token instanceof Formula)) {
+                builder.append(token);
+                continue;
+            }
+            Formula formula = (Formula) token;
+            switch (formula.type) {
+                case TRUE:
+                    builder.append(Symbol.TAUTOLOGY);
+                    break;
+                case FALSE:
+                    builder.append(Symbol.CONTRADICTION);
+                    break;
+                case VARIABLE:
+                    builder.append(formula.variable);
+                    break;
+                case NOT:
+                    builder.append(Symbol.NEG);
+                    pushOperand(formula.left, pending);
+                    break;
+                default:
+                    // pushed in reverse, the left operand is popped first
+                    pushOperand(formula.right, pending);
+                    pending.push(' ' + formula.getSymbol() + ' ');
+                    pushOperand(formula.left, pending);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void pushOperand(Formula operand, Deque<Object> pending) {
+        if (!operand.isConnective()) {
+            pending.push(operand);
+            return;
+        }
+        pending.push(Symbol.RBRACKET);
+        pending.push(operand);
+        pending.push(Symbol.LBRACKET);
+    }
+
+    private String getSymbol() {
+        switch (type) {
+            case AND:
+                return Symbol.AND;
+            case OR:
+                return Symbol.OR;
+            case IMPLIES:
+                return Symbol.IMPLIES;
+            case IFF:
+                return Symbol.IFF;
+            default:
+                throw new IllegalStateException("Not a connective: " + type);
+        }
+    }
+}
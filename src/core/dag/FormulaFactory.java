@@ -0,0 +1,430 @@
+package core.dag;
+
+import core.evaluation.Assignment;
+import core.evaluation.Program;
+import core.evaluation.VariableTable;
+import core.symbols.Connective;
+import core.trees.Node;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates hash-consed formulas, structurally equal formulas of a factory are a single shared node
+ *
+ * Every formula is looked up in a unique table before it is created. Operands of AND, OR and IFF
+ * are ordered by id, double negations, constants and a op a are folded, so more equivalent
+ * formulas end up as the same node. Results of transformations are memoized per node and
+ * kept by the factory, so a shared subformula is only transformed once, e.g. eliminating the arrows
+ * of nested biconditionals is linear in the number of nodes instead of exponential as on trees.
+ * Nothing recurses: operands always have smaller ids than the formulas using them, so transformations
+ * and evaluation are loops over the reachable ids in ascending order.
+ *
+ * Formulas are immutable and can be read by any thread, the factory itself is not synchronized.
+ */
+public class FormulaFactory {
+
+    private final Map<Long, Formula> unique_table;  // type, left and right id packed into a long
+    private final Map<String, Formula> variables;
+    private final List<Formula> formulas;  // by id
+    private final Formula tautology, contradiction;
+
+    private final Map<Formula, Formula> without_arrows;
+    private final Map<Formula, Formula> negation_normal, negated_negation_normal;
+
+    public FormulaFactory() {
+        unique_table = new HashMap<>();
+        variables = new HashMap<>();
+        formulas = new ArrayList<>();
+        tautology = create(Formula.Type.TRUE, null, null, null);
+        contradiction = create(Formula.Type.FALSE, null, null, null);
+        without_arrows = new HashMap<>();
+        negation_normal = new HashMap<>();
+        negated_negation_normal = new HashMap<>();
+    }
+
+    private Formula create(Formula.Type type, Formula left, Formula right, String variable) {
+        if (formulas.size() == 1 << 30) throw new IllegalStateException("Too many formulas in factory");
+        Formula formula = new Formula(type, left, right, variable, formulas.size());
+        formulas.add(formula);
+        return formula;
+    }
+
+    // less than 2^30 formulas, see create
+    private Formula intern(Formula.Type type, Formula left, Formula right) {
+        long key = (long) type.ordinal() << 60 | (long) left.getId() << 30 | (right == null ? 0 : right.getId());
+        Formula formula = unique_table.get(key);
+        if (formula == null) {
+            formula = create(type, left, right, null);
+            unique_table.put(key, formula);
+        }
+        return formula;
+    }
+
+    private void checkOwner(Formula formula) {
+        if (formula == null) throw new IllegalArgumentException("Given formula is null");
+        int id = formula.getId();
+        if (id >= formulas.size() || formulas.get(id) != formula) {
+            throw new IllegalArgumentException("Formula is not created by this factory: " + formula);
+        }
+    }
+
+    /*
+        FACTORY METHODS BELOW
+     */
+
+    public Formula constant(boolean value) {
+        return value ? tautology : contradiction;
+    }
+
+    /**
+     * @param raw raw literal, e.g. P for both P and ~P
+     */
+    public Formula variable(String raw) {
+        if (raw == null || raw.isEmpty()) throw new IllegalArgumentException("Variable name is blank");
+        return variables.computeIfAbsent(raw, name -> create(Formula.Type.VARIABLE, null, null, name));
+    }
+
+    public Formula not(Formula formula) {
+        checkOwner(formula);
+        switch (formula.getType()) {
+            case TRUE:
+                return contradiction;
+            case FALSE:
+                return tautology;
+            case NOT:
+                return formula.getLeft();  // ~~a == a
+            default:
+                return intern(Formula.Type.NOT, formula, null);
+        }
+    }
+
+    // a and ~a
+    private static boolean complementary(Formula left, Formula right) {
+        return left.getType() == Formula.Type.NOT && left.getLeft() == right
+                || right.getType() == Formula.Type.NOT && right.getLeft() == left;
+    }
+
+    public Formula and(Formula left, Formula right) {
+        checkOwner(left);
+        checkOwner(right);
+        if (left == contradiction || right == contradiction) return contradiction;
+        if (left == tautology || left == right) return right;
+        if (right == tautology) return left;
+        if (complementary(left, right)) return contradiction;
+        return left.getId() < right.getId()
+                ? intern(Formula.Type.AND, left, right) : intern(Formula.Type.AND, right, left);
+    }
+
+    public Formula or(Formula left, Formula right) {
+        checkOwner(left);
+        checkOwner(right);
+        if (left == tautology || right == tautology) return tautology;
+        if (left == contradiction || left == right) return right;
+        if (right == contradiction) return left;
+        if (complementary(left, right)) return tautology;
+        return left.getId() < right.getId()
+                ? intern(Formula.Type.OR, left, right) : intern(Formula.Type.OR, right, left);
+    }
+
+    public Formula implies(Formula left, Formula right) {
+        checkOwner(left);
+        checkOwner(right);
+        if (left == contradiction || right == tautology || left == right) return tautology;
+        if (left == tautology) return right;
+        if (right == contradiction) return not(left);
+        return intern(Formula.Type.IMPLIES, left, right);
+    }
+
+    public Formula iff(Formula left, Formula right) {
+        checkOwner(left);
+        checkOwner(right);
+        if (left == right) return tautology;
+        if (complementary(left, right)) return contradiction;
+        if (left == tautology) return right;
+        if (right == tautology) return left;
+        if (left == contradiction) return not(right);
+        if (right == contradiction) return not(left);
+        return left.getId() < right.getId()
+                ? intern(Formula.Type.IFF, left, right) : intern(Formula.Type.IFF, right, left);
+    }
+
+    public Formula connect(Connective.Type type, Formula left, Formula right) {
+        switch (type) {
+            case AND:
+                return and(left, right);
+            case OR:
+                return or(left, right);
+            case IMPLIES:
+                return implies(left, right);
+            case IFF:
+                return iff(left, right);
+            default:
+                throw new IllegalArgumentException("Unrecognised connective type: " + type);
+        }
+    }
+
+    /**
+     * @return the formula of the given tree, built from its compiled program so deep trees do not recurse,
+     * see Node.compile
+     */
+    public Formula of(Node tree) {
+        Program program = tree.compile();
+        String[] slots = program.getVariables();
+        Formula[] slot_variables = new Formula[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            slot_variables[i] = variable(slots[i]);
+        }
+        Formula[] stack = new Formula[Math.max(1, program.getMaxDepth())];
+        int top = -1;
+        for (int instruction : program.getCode()) {
+            int op = instruction & Program.OP_MASK;
+            switch (op) {
+                case Program.LOAD:
+                    stack[++top] = slot_variables[instruction >>> Program.OP_BITS];
+                    break;
+                case Program.LOAD_NEGATED:
+                    stack[++top] = not(slot_variables[instruction >>> Program.OP_BITS]);
+                    break;
+                case Program.TRUE:
+                    stack[++top] = tautology;
+                    break;
+                case Program.FALSE:
+                    stack[++top] = contradiction;
+                    break;
+                case Program.NOT:
+                    stack[top] = not(stack[top]);
+                    break;
+                case Program.AND:
+                    top--;
+                    stack[top] = and(stack[top], stack[top + 1]);
+                    break;
+                case Program.OR:
+                    top--;
+                    stack[top] = or(stack[top], stack[top + 1]);
+                    break;
+                case Program.IMPLIES:
+                    top--;
+                    stack[top] = implies(stack[top], stack[top + 1]);
+                    break;
+                case Program.IFF:
+                    top--;
+                    stack[top] = iff(stack[top], stack[top + 1]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unrecognised instruction: " + instruction);
+            }
+        }
+        return stack[0];
+    }
+
+    /*
+        TRANSFORMATION METHODS BELOW, results are memoized per node
+     */
+
+    /**
+     * Replace all -> and <-> by Equivalent Replacement Rule, operands are shared instead of copied
+     * a <-> b === (~a \/ b) /\ (~b \/ a)
+     * a -> b === ~a \/ b
+     */
+    public Formula eliminateArrows(Formula formula) {
+        checkOwner(formula);
+        Formula result = without_arrows.get(formula);
+        if (result != null) return result;
+        // operands have smaller ids, so they are transformed before the formulas using them
+        BitSet reachable = reachable(formula);
+        for (int id = reachable.nextSetBit(0); id >= 0; id = reachable.nextSetBit(id + 1)) {
+            Formula node = formulas.get(id);
+            if (without_arrows.containsKey(node)) continue;
+            Formula left = node.getLeft() == null ? null : without_arrows.get(node.getLeft());
+            Formula right = node.getRight() == null ? null : without_arrows.get(node.getRight());
+            switch (node.getType()) {
+                case NOT:
+                    result = not(left);
+                    break;
+                case AND:
+                    result = and(left, right);
+                    break;
+                case OR:
+                    result = or(left, right);
+                    break;
+                case IMPLIES:
+                    result = or(not(left), right);
+                    break;
+                case IFF:
+                    result = and(or(not(left), right), or(not(right), left));
+                    break;
+                default:
+                    result = node;  // constants and variables
+            }
+            without_arrows.put(node, result);
+        }
+        return without_arrows.get(formula);
+    }
+
+    /**
+     * @return the formula without arrows where negations only apply to variables
+     */
+    public Formula pushNegations(Formula formula) {
+        Formula without_arrow = eliminateArrows(formula);
+        Formula result = negation_normal.get(without_arrow);
+        if (result != null) return result;
+
+        // polarities each node is needed in, a negation flips the polarity of its operand
+        BitSet positive = new BitSet(), negative = new BitSet();
+        int[] stack = new int[2 * (without_arrow.getId() + 1)];  // id * 2 + 1 if negated, each pushed once
+        int top = -1;
+        stack[++top] = without_arrow.getId() << 1;
+        positive.set(without_arrow.getId());
+        while (top >= 0) {
+            int pair = stack[top--];
+            Formula node = formulas.get(pair >>> 1);
+            boolean negated = (pair & 1) == 1;
+            if (node.getType() == Formula.Type.NOT) negated = !negated;
+            top = need(node.getLeft(), negated ? negative : positive, negated, stack, top);
+            top = need(node.getRight(), negated ? negative : positive, negated, stack, top);
+        }
+
+        // operands have smaller ids, so they are transformed before the formulas using them
+        BitSet nodes = (BitSet) positive.clone();
+        nodes.or(negative);
+        for (int id = nodes.nextSetBit(0); id >= 0; id = nodes.nextSetBit(id + 1)) {
+            Formula node = formulas.get(id);
+            if (positive.get(id) && !negation_normal.containsKey(node)) {
+                negation_normal.put(node, pushNegation(node, false));
+            }
+            if (negative.get(id) && !negated_negation_normal.containsKey(node)) {
+                negated_negation_normal.put(node, pushNegation(node, true));
+            }
+        }
+        return negation_normal.get(without_arrow);
+    }
+
+    private static int need(Formula operand, BitSet needed, boolean negated, int[] stack, int top) {
+        if (operand == null || needed.get(operand.getId())) return top;
+        needed.set(operand.getId());
+        stack[++top] = operand.getId() << 1 | (negated ? 1 : 0);
+        return top;
+    }
+
+    // node has no arrows and its operands are already transformed in the polarities needed
+    private Formula pushNegation(Formula node, boolean negated) {
+        Map<Formula, Formula> operands = negated ? negated_negation_normal : negation_normal;
+        switch (node.getType()) {
+            case NOT:
+                return (negated ? negation_normal : negated_negation_normal).get(node.getLeft());
+            case AND:
+                Formula left = operands.get(node.getLeft()), right = operands.get(node.getRight());
+                return negated ? or(left, right) : and(left, right);  // De Morgan
+            case OR:
+                left = operands.get(node.getLeft());
+                right = operands.get(node.getRight());
+                return negated ? and(left, right) : or(left, right);
+            default:
+                return negated ? not(node) : node;  // constants and variables
+        }
+    }
+
+    /*
+        EVALUATION METHODS BELOW
+     */
+
+    /**
+     * Evaluate the formula, every shared subformula is evaluated once
+     * Every variable of the formula must be assigned, operands are not short circuited
+     *
+     * @param assignment truth values of the variables, looked up by raw literal in its variable table
+     */
+    public boolean evaluate(Formula formula, Assignment assignment) {
+        checkOwner(formula);
+        BitSet reachable = reachable(formula);
+        boolean[] values = new boolean[formula.getId() + 1];
+        // operands have smaller ids, so they are evaluated before the formulas using them
+        for (int id = reachable.nextSetBit(0); id >= 0; id = reachable.nextSetBit(id + 1)) {
+            Formula node = formulas.get(id);
+            boolean left = node.getLeft() != null && values[node.getLeft().getId()];
+            boolean right = node.getRight() != null && values[node.getRight().getId()];
+            boolean value;
+            switch (node.getType()) {
+                case TRUE:
+                    value = true;
+                    break;
+                case FALSE:
+                    value = false;
+                    break;
+                case VARIABLE:
+                    VariableTable table = assignment.getVariables();
+                    int index = table.indexOf(node.getVariable());
+                    if (!assignment.isAssigned(index)) {
+                        throw new IllegalStateException(String.format("Access truth value before assignment for " +
+                                "literal: \"%s\"", node.getVariable()));
+                    }
+                    value = assignment.getValue(index);
+                    break;
+                case NOT:
+                    value = !left;
+                    break;
+                case AND:
+                    value = left && right;
+                    break;
+                case OR:
+                    value = left || right;
+                    break;
+                case IMPLIES:
+                    value = !left || right;
+                    break;
+                case IFF:
+                    value = left == right;
+                    break;
+                default:
+                    throw new IllegalStateException("Unrecognised formula type: " + node.getType());
+            }
+            values[id] = value;
+        }
+        return values[formula.getId()];
+    }
+
+    /*
+        GETTER METHODS BELOW
+     */
+
+    /**
+     * @return number of distinct nodes reachable from the given formula, including itself
+     */
+    public int countNodes(Formula formula) {
+        checkOwner(formula);
+        return reachable(formula).cardinality();
+    }
+
+    // ids of the nodes reachable from the given formula, including itself, found without recursion
+    private BitSet reachable(Formula formula) {
+        BitSet visited = new BitSet(formula.getId() + 1);
+        int[] stack = new int[formula.getId() + 1];  // each node is pushed at most once
+        int top = -1;
+        stack[++top] = formula.getId();
+        visited.set(formula.getId());
+        while (top >= 0) {
+            Formula node = formulas.get(stack[top--]);
+            top = push(node.getLeft(), visited, stack, top);
+            top = push(node.getRight(), visited, stack, top);
+        }
+        return visited;
+    }
+
+    private static int push(Formula operand, BitSet visited, int[] stack, int top) {
+        if (operand == null || visited.get(operand.getId())) return top;
+        visited.set(operand.getId());
+        stack[++top] = operand.getId();
+        return top;
+    }
+
+    /**
+     * @return number of formulas created by this factory, including T and F
+     */
+    public int size() {
+        return formulas.size();
+    }
+}
@@ -0,0 +1,165 @@
+package core.evaluation;
+
+import core.symbols.Literal;
+
+import java.util.Arrays;
+
+/**
+ * Truth values of raw literals for evaluating a tree, see Node.isTrue(Assignment)
+ *
+ * Unlike Literal.assign, values live in this object instead of the shared literal instances,
+ * so any number of threads can evaluate the same tree at the same time, each with its own assignment.
+ * An assignment itself is not synchronized and should not be modified while another thread reads it.
+ *
+ * Values are bits indexed by a VariableTable. An assignment built on the table of a parsed formula
+ * reads the value of a LitNode by its index without any hash lookup.
+ */
+public class Assignment {
+
+    private final VariableTable variables;
+    private final boolean growable;  // unknown literals are added to the table if true
+    private long[] values;
+    private long[] assigned;
+
+    /**
+     * An assignment with its own variable table which grows as literals are assigned
+     */
+    public Assignment() {
+        this(new VariableTable(), true);
+    }
+
+    /**
+     * An assignment of the variables in the given table, e.g. Parser.getVariableTable
+     */
+    public Assignment(VariableTable variables) {
+        this(variables, false);
+    }
+
+    private Assignment(VariableTable variables, boolean growable) {
+        this.variables = variables;
+        this.growable = growable;
+        int words = Math.max(1, (variables.size() + Long.SIZE - 1) / Long.SIZE);
+        values = new long[words];
+        assigned = new long[words];
+    }
+
+    /**
+     * @return a copy of the given assignment sharing the same variable table
+     */
+    public Assignment(Assignment other) {
+        variables = other.variables;
+        growable = other.growable;
+        values = other.values.clone();
+        assigned = other.assigned.clone();
+    }
+
+    public VariableTable getVariables() {
+        return variables;
+    }
+
+    /**
+     * Assign the variable at the given index of the variable table
+     *
+     * @return this assignment
+     */
+    public Assignment assign(int index, boolean value) {
+        if (index < 0 || index >= variables.size()) {
+            throw new IndexOutOfBoundsException(String.format("Variable index %s out of bounds for size %s",
+                    index, variables.size()));
+        }
+        int word = index >>> 6;
+        if (word >= values.length) {
+            values = Arrays.copyOf(values, Math.max(word + 1, values.length * 2));
+            assigned = Arrays.copyOf(assigned, values.length);
+        }
+        long bit = 1L << index;
+        values[word] = value ? values[word] | bit : values[word] & ~bit;
+        assigned[word] |= bit;
+        return this;
+    }
+
+    /**
+     * Assign the raw literal of the given literal, so ~P and P are both affected
+     *
+     * @return this assignment
+     */
+    public Assignment assign(Literal literal, boolean value) {
+        if (literal.isTautology() || literal.isContradiction()) {
+            throw new IllegalStateException(
+                    "Assign value to " + (literal.isTautology() ? "tautology" : "contradiction") + " literal");
+        }
+        int index = growable ? variables.add(literal.getRaw()) : variables.indexOf(literal.getRaw());
+        if (index < 0) {
+            throw new IllegalArgumentException(String.format("Literal \"%s\" is not in variable table %s",
+                    literal.getRaw(), variables));
+        }
+        return assign(index, value);
+    }
+
+    /**
+     * @return if the variable at the given index is assigned
+     */
+    public boolean isAssigned(int index) {
+        return index >= 0 && index >>> 6 < assigned.length && (assigned[index >>> 6] >>> index & 1) == 1;
+    }
+
+    public boolean isAssigned(Literal literal) {
+        return literal.isTautology() || literal.isContradiction() || isAssigned(variables.indexOf(literal.getRaw()));
+    }
+
+    /**
+     * @return raw truth value of the variable at the given index
+     */
+    public boolean getValue(int index) {
+        if (!isAssigned(index)) {
+            throw new IllegalStateException(String.format("Access truth value before assignment for variable: %s",
+                    index));
+        }
+        return (values[index >>> 6] >>> index & 1) == 1;
+    }
+
+    /**
+     * @return truth value of the given literal with its negation applied
+     */
+    public boolean getTruthValue(Literal literal) {
+        return getTruthValue(literal, -1);
+    }
+
+    /**
+     * @param code a literal packed relative to the variable table of this assignment, see PackedLiteral
+     * @return truth value of the literal with its negation applied
+     */
+    public boolean getTruthValue(int code) {
+        if (code == PackedLiteral.TRUE) return true;
+        if (code == PackedLiteral.FALSE) return false;
+        int index = PackedLiteral.getVariable(code);
+        if (!isAssigned(index)) {
+            throw new IllegalStateException(String.format("Access truth value before assignment for literal: \"%s\"",
+                    index < variables.size() ? PackedLiteral.toString(code, variables) : code));
+        }
+        return PackedLiteral.isNegated(code) != ((values[index >>> 6] >>> index & 1) == 1);
+    }
+
+    /**
+     * Same as getTruthValue(literal) but use index directly if it is the index of the literal in the variable table
+     */
+    public boolean getTruthValue(Literal literal, int index) {
+        if (literal.isTautology()) return true;
+        if (literal.isContradiction()) return false;
+        // names in the table are the raw strings of the literals themselves, so identity is enough
+        // to confirm the index, anything else falls back to the hash lookup
+        if (index < 0 || index >= variables.size() || variables.getName(index) != literal.getRaw()) {
+            index = variables.indexOf(literal.getRaw());
+        }
+        if (!isAssigned(index)) {
+            throw new IllegalStateException(String.format("Access truth value before assignment for literal: \"%s\"",
+                    literal.getFull()));
+        }
+        return literal.isNegated() != ((values[index >>> 6] >>> index & 1) == 1);
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        Arrays.fill(assigned, 0);
+    }
+}
@@ -0,0 +1,188 @@
+package core.evaluation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Many programs merged into one DAG over a shared set of variables, see BatchTruthTable
+ *
+ * Identical subformulas of all programs become a single node, so they are evaluated once per row.
+ * Operands of AND, OR and IFF are ordered and double negations are removed before nodes are shared.
+ * Nodes are numbered in evaluation order, the operands of a node always come before it.
+ */
+public class BatchProgram {
+
+    private final String[] variables;
+    private final int[] ops;  // opcodes of Program, LOAD_NEGATED is stored as NOT of LOAD
+    private final int[] lefts;  // variable of LOAD, operand of NOT, left operand of connectives
+    private final int[] rights;
+    private final int[] roots;  // node of each program
+
+    private BatchProgram(String[] variables, int[] ops, int[] lefts, int[] rights, int[] roots) {
+        this.variables = variables;
+        this.ops = ops;
+        this.lefts = lefts;
+        this.rights = rights;
+        this.roots = roots;
+    }
+
+    /**
+     * Merge the given programs, variables are numbered by first appearance in the programs
+     */
+    public static BatchProgram of(Program[] programs) {
+        Map<String, Integer> variables = new LinkedHashMap<>();
+        Builder builder = new Builder();
+        int[] roots = new int[programs.length];
+        for (int p = 0; p < programs.length; p++) {
+            String[] slots = programs[p].getVariables();
+            int[] slot_variables = new int[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                slot_variables[i] = variables.computeIfAbsent(slots[i], k -> variables.size());
+            }
+            int[] stack = new int[Math.max(1, programs[p].getMaxDepth())];
+            int top = -1;
+            for (int instruction : programs[p].code()) {
+                int op = instruction & Program.OP_MASK;
+                switch (op) {
+                    case Program.LOAD:
+                        stack[++top] = builder.intern(Program.LOAD, slot_variables[instruction >>> Program.OP_BITS], 0);
+                        break;
+                    case Program.LOAD_NEGATED:
+                        int load = builder.intern(Program.LOAD, slot_variables[instruction >>> Program.OP_BITS], 0);
+                        stack[++top] = builder.negate(load);
+                        break;
+                    case Program.TRUE:
+                    case Program.FALSE:
+                        stack[++top] = builder.intern(op, 0, 0);
+                        break;
+                    case Program.NOT:
+                        stack[top] = builder.negate(stack[top]);
+                        break;
+                    case Program.AND:
+                    case Program.OR:
+                    case Program.IMPLIES:
+                    case Program.IFF:
+                        top--;
+                        int left = stack[top], right = stack[top + 1];
+                        if (op != Program.IMPLIES && left > right) {  // commutative, share a op b with b op a
+                            left = stack[top + 1];
+                            right = stack[top];
+                        }
+                        stack[top] = builder.intern(op, left, right);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unrecognised instruction: " + instruction);
+                }
+            }
+            roots[p] = stack[0];
+        }
+        return new BatchProgram(variables.keySet().toArray(new String[0]), builder.ops(), builder.lefts(),
+                builder.rights(), roots);
+    }
+
+    // unique table of nodes
+    private static class Builder {
+        private final Map<Long, Integer> nodes = new HashMap<>();  // op, left and right packed into a long
+        private final List<int[]> instructions = new ArrayList<>();
+
+        private int intern(int op, int left, int right) {
+            long key = (long) op << 60 | (long) left << 30 | right;  // less than 2^30 nodes and variables
+            return nodes.computeIfAbsent(key, k -> {
+                instructions.add(new int[]{op, left, right});
+                return instructions.size() - 1;
+            });
+        }
+
+        private int negate(int node) {
+            int[] instruction = instructions.get(node);
+            return instruction[0] == Program.NOT ? instruction[1] : intern(Program.NOT, node, 0);
+        }
+
+        private int[] ops() {
+            return instructions.stream().mapToInt(instruction -> instruction[0]).toArray();
+        }
+
+        private int[] lefts() {
+            return instructions.stream().mapToInt(instruction -> instruction[1]).toArray();
+        }
+
+        private int[] rights() {
+            return instructions.stream().mapToInt(instruction -> instruction[2]).toArray();
+        }
+    }
+
+    /**
+     * @return raw literal of each variable, variable i is column i of the BitColumns given to evaluate
+     */
+    public String[] getVariables() {
+        return variables.clone();
+    }
+
+    public int getProgramCount() {
+        return roots.length;
+    }
+
+    /**
+     * @return number of distinct nodes of all programs
+     */
+    public int getNodeCount() {
+        return ops.length;
+    }
+
+    /**
+     * @return node holding the truth values of the given program after evaluate
+     */
+    public int getRoot(int program) {
+        return roots[program];
+    }
+
+    /**
+     * Evaluate every node once for the block of columns
+     *
+     * @param values getNodeCount() buffers of at least columns.getWords() words, values[i] receives node i
+     */
+    public void evaluate(BitColumns columns, long[][] values) {
+        if (values.length < ops.length) {
+            throw new IllegalArgumentException(String.format("Expected %s buffers but got %s",
+                    ops.length, values.length));
+        }
+        int words = columns.getWords();
+        for (int node = 0; node < ops.length; node++) {
+            long[] value = values[node];
+            long[] left = values[lefts[node]];
+            long[] right = values[rights[node]];
+            switch (ops[node]) {
+                case Program.LOAD:
+                    System.arraycopy(columns.getColumn(lefts[node]), 0, value, 0, words);
+                    break;
+                case Program.TRUE:
+                    Arrays.fill(value, 0, words, -1L);
+                    break;
+                case Program.FALSE:
+                    Arrays.fill(value, 0, words, 0L);
+                    break;
+                case Program.NOT:
+                    for (int w = 0; w < words; w++) value[w] = ~left[w];
+                    break;
+                case Program.AND:
+                    for (int w = 0; w < words; w++) value[w] = left[w] & right[w];
+                    break;
+                case Program.OR:
+                    for (int w = 0; w < words; w++) value[w] = left[w] | right[w];
+                    break;
+                case Program.IMPLIES:
+                    for (int w = 0; w < words; w++) value[w] = ~left[w] | right[w];
+                    break;
+                case Program.IFF:
+                    for (int w = 0; w < words; w++) value[w] = ~(left[w] ^ right[w]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unrecognised opcode: " + ops[node]);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package core.evaluation;
+
+import core.symbols.Literal;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bit sliced truth values of literals for a block of consecutive truth table rows
+ *
+ * Row r of the truth table is bit r % 64 of word r / 64, so one word holds 64 assignments
+ * and a node can be evaluated for all of them with a single AND/OR/XOR/NOT.
+ *
+ * Rows follow the same order as TruthTable: the first variable is the most significant one
+ * and true comes before false, i.e. variable i is true in row r iff bit (n - 1 - i) of r is 0.
+ */
+public class BitColumns {
+
+    // truth pattern of the variables which changes within a word, indexed by bit position in the row number
+    private final static long[] word_patterns = {
+            0x5555555555555555L,
+            0x3333333333333333L,
+            0x0F0F0F0F0F0F0F0FL,
+            0x00FF00FF00FF00FFL,
+            0x0000FFFF0000FFFFL,
+            0x00000000FFFFFFFFL
+    };
+
+    private final Map<String, Integer> positions;  // raw literal -> index of its column
+    private final long[][] columns;
+    private final int words;
+    private long first_word;
+    private final Deque<long[]> scratches;  // reusable buffers for intermediate results
+
+    /**
+     * @param variables the non tautology/contradiction literals in truth table order
+     * @param words number of words in a block
+     */
+    public BitColumns(Literal[] variables, int words) {
+        if (words <= 0) throw new IllegalArgumentException("Number of words must be positive");
+        this.words = words;
+        positions = new HashMap<>();
+        columns = new long[variables.length][words];
+        for (int i = 0; i < variables.length; i++) {
+            positions.put(variables[i].getRaw(), i);
+        }
+        scratches = new ArrayDeque<>();
+        moveTo(0);
+    }
+
+    /**
+     * Move this block so that it starts at the given word, i.e. at row first_word * 64
+     */
+    public void moveTo(long first_word) {
+        this.first_word = first_word;
+        int bit_count = columns.length;
+        for (int i = 0; i < bit_count; i++) {
+            int bit = bit_count - 1 - i;
+            long[] column = columns[i];
+            if (bit < word_patterns.length) {
+                Arrays.fill(column, word_patterns[bit]);
+            } else {
+                int shift = bit - word_patterns.length;
+                for (int w = 0; w < words; w++) {
+                    column[w] = ((first_word + w) >>> shift & 1) == 0 ? -1L : 0L;
+                }
+            }
+        }
+    }
+
+    public int getWords() {
+        return words;
+    }
+
+    public long getFirstWord() {
+        return first_word;
+    }
+
+    /**
+     * @return truth values of the i-th variable in this block, must not be modified
+     */
+    public long[] getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * Copy the truth values of the given literal in this block to dest
+     */
+    public void fill(Literal literal, long[] dest) {
+        if (literal.isTautology()) {
+            Arrays.fill(dest, -1L);
+            return;
+        } else if (literal.isContradiction()) {
+            Arrays.fill(dest, 0L);
+            return;
+        }
+        Integer position = positions.get(literal.getRaw());
+        if (position == null) {
+            throw new IllegalStateException(String.format("No column for literal: \"%s\"", literal.getFull()));
+        }
+        long[] column = columns[position];
+        if (literal.isNegated()) {
+            for (int i = 0; i < words; i++) dest[i] = ~column[i];
+        } else {
+            System.arraycopy(column, 0, dest, 0, words);
+        }
+    }
+
+    /**
+     * @return a buffer of getWords() words with undefined content, give it back by release
+     */
+    public long[] borrow() {
+        long[] scratch = scratches.poll();
+        return scratch == null ? new long[words] : scratch;
+    }
+
+    public void release(long[] scratch) {
+        scratches.push(scratch);
+    }
+}
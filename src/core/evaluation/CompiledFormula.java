@@ -0,0 +1,94 @@
+package core.evaluation;
+
+import core.trees.Node;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A formula compiled into straight line bytecode of a hidden class, so the JIT can inline the whole formula
+ *
+ * Usage:
+ * <code>CompiledFormula.of(node).test(assignment)</code>
+ * where bit i of assignment is the truth value of slot i of getProgram()
+ *
+ * Generated classes are cached per tree and are not strongly reachable from any class loader,
+ * so they are unloaded once the tree and the returned instances are dropped.
+ */
+public abstract class CompiledFormula {
+
+    // tree -> compiled formula, the value never refers to the tree so the entry goes away with the tree
+    private final static Map<Node, CompiledFormula> cache = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Program program;
+
+    protected CompiledFormula(Program program) {
+        this.program = program;
+    }
+
+    /**
+     * @return compiled formula of the given tree, generated on first call and cached afterward
+     */
+    public static CompiledFormula of(Node tree) {
+        if (tree == null) throw new IllegalArgumentException("Given tree is null");
+        CompiledFormula formula = cache.get(tree);
+        if (formula == null) {
+            formula = of(tree.compile());
+            cache.put(tree, formula);
+        }
+        return formula;
+    }
+
+    /**
+     * @return compiled formula of the given program, this is not cached
+     */
+    public static CompiledFormula of(Program program) {
+        if (!FormulaClassWriter.canWrite(program)) {
+            return new InterpretedFormula(program);  // too large for a single method
+        }
+        return FormulaClassWriter.define(program);
+    }
+
+    /**
+     * @return the program this formula is compiled from, its slots are the bits of the assignments
+     */
+    public Program getProgram() {
+        return program;
+    }
+
+    /**
+     * @param assignment bit i is the truth value of slot i
+     * @return truth value of this formula
+     */
+    public abstract boolean test(long assignment);
+
+    /**
+     * @param columns columns[i] is the truth values of slot i, one bit per assignment
+     * @return truth values of this formula, one bit per assignment
+     */
+    public abstract long test(long[] columns);
+
+    @Override
+    public String toString() {
+        return program.toString();
+    }
+
+    // fallback for programs which can't be turned into a class
+    private static class InterpretedFormula extends CompiledFormula {
+
+        InterpretedFormula(Program program) {
+            super(program);
+        }
+
+        @Override
+        public boolean test(long assignment) {
+            return getProgram().evaluate(assignment);
+        }
+
+        @Override
+        public long test(long[] columns) {
+            return getProgram().evaluate(columns);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package core.evaluation;
+
+import core.exceptions.InternalException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+
+import static core.evaluation.Program.*;
+
+/**
+ * Write a program as a hidden subclass of CompiledFormula
+ *
+ * Both test methods are straight line translations of the postfix program on the operand stack,
+ * every value is a long: test(long) keeps one assignment in the lowest bit and test(long[]) keeps
+ * 64 assignments per value. Without branches no stack map frames are needed.
+ */
+class FormulaClassWriter {
+
+    private final static String class_name = "core/evaluation/GeneratedFormula";
+    private final static String super_name = "core/evaluation/CompiledFormula";
+    private final static String constructor_descriptor = "(Lcore/evaluation/Program;)V";
+    private final static int class_version = 52;
+    private final static int max_code_length = 65535;
+
+    // opcodes
+    private final static int LCONST_0 = 0x09, LCONST_1 = 0x0a, BIPUSH = 0x10;
+    private final static int LLOAD_1 = 0x1f, LLOAD_2 = 0x20, LLOAD_3 = 0x21, ALOAD_0 = 0x2a, ALOAD_1 = 0x2b;
+    private final static int LALOAD = 0x2f, LSTORE_2 = 0x41, LSTORE_3 = 0x42, LNEG = 0x75, LUSHR = 0x7d;
+    private final static int LAND = 0x7f, LOR = 0x81, LXOR = 0x83, L2I = 0x88;
+    private final static int IRETURN = 0xac, LRETURN = 0xad, RETURN = 0xb1, INVOKESPECIAL = 0xb7;
+
+    private final static int ACC_PUBLIC = 0x0001, ACC_FINAL = 0x0010, ACC_SUPER = 0x0020;
+
+    private final ByteArrayOutputStream pool_bytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(pool_bytes);
+    private final Map<String, Integer> pool_indexes = new HashMap<>();
+    private int pool_count = 1;
+
+    private FormulaClassWriter() {
+    } // empty
+
+    static boolean canWrite(Program program) {
+        return program.getSlotCount() <= Long.SIZE
+                && codeLength(program, true) <= max_code_length
+                && codeLength(program, false) <= max_code_length;
+    }
+
+    static CompiledFormula define(Program program) {
+        byte[] bytes = new FormulaClassWriter().write(program);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            MethodHandle constructor = lookup.findConstructor(lookup.lookupClass(),
+                    MethodType.methodType(void.class, Program.class));
+            return (CompiledFormula) constructor.invoke(program);
+        } catch (Throwable e) {
+            throw new InternalException("Unable to define class for program: " + program, e);
+        }
+    }
+
+    // length of the code of test(long) if single else test(long[]), excluding return
+    private static int codeLength(Program program, boolean single) {
+        int length = 0;
+        for (int instruction : program.code()) {
+            switch (instruction & OP_MASK) {
+                case LOAD:
+                    length += single ? 6 : 4;
+                    break;
+                case LOAD_NEGATED:
+                    length += single ? 8 : 7;
+                    break;
+                case TRUE:
+                    length += single ? 1 : 2;
+                    break;
+                case FALSE:
+                case AND:
+                case OR:
+                    length += 1;
+                    break;
+                case NOT:
+                    length += single ? 2 : 3;
+                    break;
+                case IFF:
+                    length += single ? 3 : 4;
+                    break;
+                case IMPLIES:
+                    length += single ? 5 : 6;
+                    break;
+                default:
+                    throw new IllegalStateException("Unrecognised instruction: " + instruction);
+            }
+        }
+        return length + 2;
+    }
+
+    private byte[] write(Program program) {
+        try {
+            int this_class = classEntry(class_name);
+            int super_class = classEntry(super_name);
+            int code_name = utf8Entry("Code");
+            int super_constructor = methodEntry(super_class, "<init>", constructor_descriptor);
+
+            ByteArrayOutputStream methods_bytes = new ByteArrayOutputStream();
+            DataOutputStream methods = new DataOutputStream(methods_bytes);
+
+            // GeneratedFormula(Program program) { super(program); }
+            writeMethod(methods, "<init>", constructor_descriptor, code_name, 2, 2,
+                    new byte[]{(byte) ALOAD_0, (byte) ALOAD_1, (byte) INVOKESPECIAL,
+                            (byte) (super_constructor >>> 8), (byte) super_constructor, (byte) RETURN});
+
+            // two longs per value, one extra value for constants and loading
+            int max_stack = 2 * program.getMaxDepth() + 4;
+            writeMethod(methods, "test", "(J)Z", code_name, max_stack, 5, testSingle(program));
+            writeMethod(methods, "test", "([J)J", code_name, max_stack, 4, testColumns(program));
+
+            ByteArrayOutputStream class_bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(class_bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(class_version);
+            out.writeShort(pool_count);
+            pool.flush();
+            pool_bytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(this_class);
+            out.writeShort(super_class);
+            out.writeShort(0);  // interfaces
+            out.writeShort(0);  // fields
+            out.writeShort(3);  // methods
+            methods.flush();
+            methods_bytes.writeTo(out);
+            out.writeShort(0);  // attributes
+            out.flush();
+            return class_bytes.toByteArray();
+        } catch (IOException e) {
+            throw new InternalException("Unable to write class for program: " + program, e);
+        }
+    }
+
+    private byte[] testSingle(Program program) {
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        for (int instruction : program.code()) {
+            int slot = instruction >>> OP_BITS;
+            switch (instruction & OP_MASK) {
+                case LOAD:
+                case LOAD_NEGATED:
+                    // (assignment >>> slot) & 1
+                    code.write(LLOAD_1);
+                    code.write(BIPUSH);
+                    code.write(slot);
+                    code.write(LUSHR);
+                    code.write(LCONST_1);
+                    code.write(LAND);
+                    if ((instruction & OP_MASK) == LOAD_NEGATED) {
+                        code.write(LCONST_1);
+                        code.write(LXOR);
+                    }
+                    break;
+                case TRUE:
+                    code.write(LCONST_1);
+                    break;
+                case FALSE:
+                    code.write(LCONST_0);
+                    break;
+                case NOT:
+                    code.write(LCONST_1);
+                    code.write(LXOR);
+                    break;
+                case AND:
+                    code.write(LAND);
+                    break;
+                case OR:
+                    code.write(LOR);
+                    break;
+                case IFF:
+                    code.write(LXOR);
+                    code.write(LCONST_1);
+                    code.write(LXOR);
+                    break;
+                case IMPLIES:
+                    // no swap for longs, park the right operand in a local
+                    code.write(LSTORE_3);
+                    code.write(LCONST_1);
+                    code.write(LXOR);
+                    code.write(LLOAD_3);
+                    code.write(LOR);
+                    break;
+                default:
+                    throw new IllegalStateException("Unrecognised instruction: " + instruction);
+            }
+        }
+        code.write(L2I);
+        code.write(IRETURN);
+        return code.toByteArray();
+    }
+
+    private byte[] testColumns(Program program) {
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        for (int instruction : program.code()) {
+            int slot = instruction >>> OP_BITS;
+            switch (instruction & OP_MASK) {
+                case LOAD:
+                case LOAD_NEGATED:
+                    // columns[slot]
+                    code.write(ALOAD_1);
+                    code.write(BIPUSH);
+                    code.write(slot);
+                    code.write(LALOAD);
+                    if ((instruction & OP_MASK) == LOAD_NEGATED) writeInvertAll(code);
+                    break;
+                case TRUE:
+                    code.write(LCONST_1);
+                    code.write(LNEG);
+                    break;
+                case FALSE:
+                    code.write(LCONST_0);
+                    break;
+                case NOT:
+                    writeInvertAll(code);
+                    break;
+                case AND:
+                    code.write(LAND);
+                    break;
+                case OR:
+                    code.write(LOR);
+                    break;
+                case IFF:
+                    code.write(LXOR);
+                    writeInvertAll(code);
+                    break;
+                case IMPLIES:
+                    code.write(LSTORE_2);
+                    writeInvertAll(code);
+                    code.write(LLOAD_2);
+                    code.write(LOR);
+                    break;
+                default:
+                    throw new IllegalStateException("Unrecognised instruction: " + instruction);
+            }
+        }
+        code.write(LRETURN);
+        return code.toByteArray();
+    }
+
+    // value ^ -1L
+    private static void writeInvertAll(ByteArrayOutputStream code) {
+        code.write(LCONST_1);
+        code.write(LNEG);
+        code.write(LXOR);
+    }
+
+    private void writeMethod(DataOutputStream out, String name, String descriptor, int code_name,
+                             int max_stack, int max_locals, byte[] code) throws IOException {
+        out.writeShort(ACC_PUBLIC);
+        out.writeShort(utf8Entry(name));
+        out.writeShort(utf8Entry(descriptor));
+        out.writeShort(1);  // attributes
+        out.writeShort(code_name);
+        out.writeInt(12 + code.length);
+        out.writeShort(max_stack);
+        out.writeShort(max_locals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0);  // exception table
+        out.writeShort(0);  // attributes
+    }
+
+    private int utf8Entry(String value) throws IOException {
+        Integer index = pool_indexes.get("Utf8:" + value);
+        if (index != null) return index;
+        pool.writeByte(1);
+        pool.writeUTF(value);
+        return addEntry("Utf8:" + value);
+    }
+
+    private int classEntry(String name) throws IOException {
+        int name_index = utf8Entry(name);
+        Integer index = pool_indexes.get("Class:" + name);
+        if (index != null) return index;
+        pool.writeByte(7);
+        pool.writeShort(name_index);
+        return addEntry("Class:" + name);
+    }
+
+    private int methodEntry(int class_index, String name, String descriptor) throws IOException {
+        int name_index = utf8Entry(name);
+        int descriptor_index = utf8Entry(descriptor);
+        pool.writeByte(12);  // NameAndType
+        pool.writeShort(name_index);
+        pool.writeShort(descriptor_index);
+        int name_and_type = addEntry("NameAndType:" + name + descriptor);
+        pool.writeByte(10);  // Methodref
+        pool.writeShort(class_index);
+        pool.writeShort(name_and_type);
+        return addEntry("Methodref:" + name + descriptor);
+    }
+
+    private int addEntry(String key) {
+        int index = pool_count++;
+        pool_indexes.put(key, index);
+        return index;
+    }
+}
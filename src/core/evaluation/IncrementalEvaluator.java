@@ -0,0 +1,143 @@
+package core.evaluation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static core.evaluation.Program.*;
+
+/**
+ * Evaluate a program under an assignment which changes one slot at a time
+ *
+ * Every instruction of the program is a node whose value is cached. Flipping a slot
+ * re-evaluates only the ancestors of the occurrences of that slot, and stops climbing as soon
+ * as a value does not change, so a flip costs about the depth of the formula instead of its size.
+ * This pairs with Gray code enumeration where consecutive rows differ in exactly one variable.
+ */
+public class IncrementalEvaluator {
+
+    private final int[] ops;
+    private final int[] operands;  // slot for loads, unused otherwise
+    private final int[] lefts, rights;  // child instruction indexes, -1 if none
+    private final int[] parents;  // -1 for the root
+    private final int[][] occurrences;  // slot -> instruction indexes loading it
+    private final boolean[] values;
+    private final int root;
+    private long assignment;
+
+    /**
+     * @param program the program to evaluate, at most 64 slots
+     * @param assignment initial assignment, bit i is the truth value of slot i
+     */
+    public IncrementalEvaluator(Program program, long assignment) {
+        if (program.getSlotCount() > Long.SIZE) {
+            throw new IllegalArgumentException(String.format("Program with %s slots can't be assigned by a long",
+                    program.getSlotCount()));
+        }
+        int[] code = program.code();
+        int size = code.length;
+        ops = new int[size];
+        operands = new int[size];
+        lefts = new int[size];
+        rights = new int[size];
+        parents = new int[size];
+        values = new boolean[size];
+
+        List<List<Integer>> slot_occurrences = new ArrayList<>();
+        for (int i = 0; i < program.getSlotCount(); i++) slot_occurrences.add(new ArrayList<>());
+
+        // rebuild the tree from the postfix code, the stack holds instruction indexes
+        int[] stack = new int[Math.max(1, program.getMaxDepth())];
+        int top = -1;
+        for (int i = 0; i < size; i++) {
+            int op = code[i] & OP_MASK;
+            ops[i] = op;
+            operands[i] = code[i] >>> OP_BITS;
+            lefts[i] = rights[i] = parents[i] = -1;
+            switch (op) {
+                case LOAD:
+                case LOAD_NEGATED:
+                    slot_occurrences.get(operands[i]).add(i);
+                    break;
+                case TRUE:
+                case FALSE:
+                    break;
+                case NOT:
+                    lefts[i] = stack[top--];
+                    break;
+                default:
+                    rights[i] = stack[top--];
+                    lefts[i] = stack[top--];
+                    break;
+            }
+            if (lefts[i] >= 0) parents[lefts[i]] = i;
+            if (rights[i] >= 0) parents[rights[i]] = i;
+            stack[++top] = i;
+        }
+        root = size - 1;
+
+        occurrences = new int[slot_occurrences.size()][];
+        for (int i = 0; i < occurrences.length; i++) {
+            occurrences[i] = slot_occurrences.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        this.assignment = assignment;
+        for (int i = 0; i < size; i++) {
+            values[i] = compute(i);  // children are always before parents in postfix order
+        }
+    }
+
+    private boolean compute(int i) {
+        switch (ops[i]) {
+            case LOAD:
+                return (assignment >>> operands[i] & 1) == 1;
+            case LOAD_NEGATED:
+                return (assignment >>> operands[i] & 1) == 0;
+            case TRUE:
+                return true;
+            case FALSE:
+                return false;
+            case NOT:
+                return !values[lefts[i]];
+            case AND:
+                return values[lefts[i]] && values[rights[i]];
+            case OR:
+                return values[lefts[i]] || values[rights[i]];
+            case IMPLIES:
+                return !values[lefts[i]] || values[rights[i]];
+            case IFF:
+                return values[lefts[i]] == values[rights[i]];
+            default:
+                throw new IllegalStateException("Unrecognised instruction: " + ops[i]);
+        }
+    }
+
+    /**
+     * Invert the truth value of a slot and update the affected nodes
+     *
+     * @return truth value of the formula after the flip
+     */
+    public boolean flip(int slot) {
+        assignment ^= 1L << slot;
+        for (int occurrence : occurrences[slot]) {
+            int node = occurrence;
+            while (node >= 0) {
+                boolean value = compute(node);
+                if (value == values[node]) break;  // ancestors are unaffected
+                values[node] = value;
+                node = parents[node];
+            }
+        }
+        return values[root];
+    }
+
+    /**
+     * @return truth value of the formula under the current assignment
+     */
+    public boolean getValue() {
+        return values[root];
+    }
+
+    public long getAssignment() {
+        return assignment;
+    }
+}
@@ -0,0 +1,72 @@
+package core.evaluation;
+
+/**
+ * Literals packed into an int relative to a VariableTable, see LitNode.getCode and Node.toPackedCNF
+ *
+ * The code of variable i of the table is (i + 1) * 2, plus one if it is negated, so the
+ * negation of a code is code ^ 1 and names are only stored once in the table.
+ * Id 0 is reserved for the constants: TRUE is 0 and FALSE, its negation, is 1.
+ */
+public final class PackedLiteral {
+
+    public final static int TRUE = 0;
+    public final static int FALSE = 1;
+
+    private PackedLiteral() {
+    }
+
+    /**
+     * @param variable index of the raw literal in its variable table
+     */
+    public static int of(int variable, boolean negated) {
+        if (variable < 0) throw new IndexOutOfBoundsException("Negative variable index: " + variable);
+        return (variable + 1) << 1 | (negated ? 1 : 0);
+    }
+
+    /**
+     * @return index of the variable in its table, -1 for TRUE and FALSE
+     */
+    public static int getVariable(int code) {
+        return (code >>> 1) - 1;
+    }
+
+    public static boolean isNegated(int code) {
+        return (code & 1) == 1;
+    }
+
+    public static boolean isConstant(int code) {
+        return code >>> 1 == 0;
+    }
+
+    public static int negate(int code) {
+        return code ^ 1;
+    }
+
+    /**
+     * @return the code in the formula syntax, e.g. ~P
+     */
+    public static String toString(int code, VariableTable variables) {
+        if (code == TRUE) return "T";
+        if (code == FALSE) return "F";
+        String name = variables.getName(getVariable(code));
+        return isNegated(code) ? "~" + name : name;
+    }
+
+    /**
+     * @param clauses a conjunction of disjunctions of codes, e.g. from Node.toPackedCNF
+     * @return if every clause has a true literal under the given assignment
+     */
+    public static boolean isSatisfied(int[][] clauses, Assignment assignment) {
+        for (int[] clause : clauses) {
+            boolean satisfied = false;
+            for (int code : clause) {
+                if (assignment.getTruthValue(code)) {
+                    satisfied = true;
+                    break;
+                }
+            }
+            if (!satisfied) return false;
+        }
+        return true;
+    }
+}
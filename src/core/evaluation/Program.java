@@ -0,0 +1,278 @@
+package core.evaluation;
+
+import java.util.Arrays;
+
+/**
+ * A formula compiled into a flat postfix program, see Node.compile
+ *
+ * Each instruction is an int, the lowest OP_BITS bits are the opcode and the rest is the operand.
+ * Brackets are erased and literals are resolved to dense slots, slot i is the i-th variable of getVariables.
+ * A program is immutable and can be evaluated by any number of threads at the same time.
+ *
+ * Usage:
+ * <code>node.compile().evaluate(assignment)</code>
+ * where bit i of assignment is the truth value of slot i
+ */
+public class Program {
+
+    public final static int OP_BITS = 4;
+    public final static int OP_MASK = (1 << OP_BITS) - 1;
+
+    // push the value of a slot
+    public final static int LOAD = 0;
+    // push the inverted value of a slot
+    public final static int LOAD_NEGATED = 1;
+    // push a constant
+    public final static int TRUE = 2;
+    public final static int FALSE = 3;
+    // pop one value and push the result
+    public final static int NOT = 4;
+    // pop two values and push the result
+    public final static int AND = 5;
+    public final static int OR = 6;
+    public final static int IMPLIES = 7;
+    public final static int IFF = 8;
+
+    private final int[] code;
+    private final String[] variables;
+    private final int max_depth;
+
+    Program(int[] code, String[] variables, int max_depth) {
+        this.code = code;
+        this.variables = variables;
+        this.max_depth = max_depth;
+    }
+
+    /**
+     * @return a copy of the instructions of this program
+     */
+    public int[] getCode() {
+        return code.clone();
+    }
+
+    // internal accessor without copy for other evaluators in this package
+    int[] code() {
+        return code;
+    }
+
+    /**
+     * @return raw literal of each slot
+     */
+    public String[] getVariables() {
+        return variables.clone();
+    }
+
+    public int getSlotCount() {
+        return variables.length;
+    }
+
+    /**
+     * @return maximum number of values on the stack while evaluating this program
+     */
+    public int getMaxDepth() {
+        return max_depth;
+    }
+
+    /**
+     * @param assignment bit i is the truth value of slot i
+     * @return truth value of the compiled formula
+     */
+    public boolean evaluate(long assignment) {
+        if (variables.length > Long.SIZE) {
+            throw new IllegalStateException(String.format("Program with %s slots can't be assigned by a long",
+                    variables.length));
+        }
+        if (max_depth > Long.SIZE) {
+            boolean[] values = new boolean[variables.length];
+            for (int i = 0; i < values.length; i++) values[i] = (assignment >>> i & 1) == 1;
+            return evaluate(values);
+        }
+        // the stack fits in a long, top of stack is the lowest bit
+        long stack = 0;
+        for (int instruction : code) {
+            switch (instruction & OP_MASK) {
+                case LOAD:
+                    stack = stack << 1 | (assignment >>> (instruction >>> OP_BITS) & 1);
+                    break;
+                case LOAD_NEGATED:
+                    stack = stack << 1 | (~assignment >>> (instruction >>> OP_BITS) & 1);
+                    break;
+                case TRUE:
+                    stack = stack << 1 | 1;
+                    break;
+                case FALSE:
+                    stack = stack << 1;
+                    break;
+                case NOT:
+                    stack ^= 1;
+                    break;
+                case AND:
+                    stack = stack >>> 2 << 1 | (stack >>> 1 & stack & 1);
+                    break;
+                case OR:
+                    stack = stack >>> 2 << 1 | ((stack >>> 1 | stack) & 1);
+                    break;
+                case IMPLIES:
+                    stack = stack >>> 2 << 1 | ((~(stack >>> 1) | stack) & 1);
+                    break;
+                case IFF:
+                    stack = stack >>> 2 << 1 | (~(stack >>> 1 ^ stack) & 1);
+                    break;
+                default:
+                    throw new IllegalStateException("Unrecognised instruction: " + instruction);
+            }
+        }
+        return (stack & 1) == 1;
+    }
+
+    /**
+     * @param values values[i] is the truth value of slot i
+     * @return truth value of the compiled formula
+     */
+    public boolean evaluate(boolean[] values) {
+        if (values.length < variables.length) {
+            throw new IllegalArgumentException(String.format("Expected %s values but got %s",
+                    variables.length, values.length));
+        }
+        boolean[] stack = new boolean[max_depth];
+        int top = -1;
+        for (int instruction : code) {
+            switch (instruction & OP_MASK) {
+                case LOAD:
+                    stack[++top] = values[instruction >>> OP_BITS];
+                    break;
+                case LOAD_NEGATED:
+                    stack[++top] = !values[instruction >>> OP_BITS];
+                    break;
+                case TRUE:
+                    stack[++top] = true;
+                    break;
+                case FALSE:
+                    stack[++top] = false;
+                    break;
+                case NOT:
+                    stack[top] = !stack[top];
+                    break;
+                case AND:
+                    top--;
+                    stack[top] = stack[top] && stack[top + 1];
+                    break;
+                case OR:
+                    top--;
+                    stack[top] = stack[top] || stack[top + 1];
+                    break;
+                case IMPLIES:
+                    top--;
+                    stack[top] = !stack[top] || stack[top + 1];
+                    break;
+                case IFF:
+                    top--;
+                    stack[top] = stack[top] == stack[top + 1];
+                    break;
+                default:
+                    throw new IllegalStateException("Unrecognised instruction: " + instruction);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Evaluate 64 assignments at once, see BitColumns
+     *
+     * @param columns columns[i] is the truth values of slot i, one bit per assignment
+     * @return truth values of the compiled formula, one bit per assignment
+     */
+    public long evaluate(long[] columns) {
+        if (columns.length < variables.length) {
+            throw new IllegalArgumentException(String.format("Expected %s columns but got %s",
+                    variables.length, columns.length));
+        }
+        long[] stack = new long[max_depth];
+        int top = -1;
+        for (int instruction : code) {
+            switch (instruction & OP_MASK) {
+                case LOAD:
+                    stack[++top] = columns[instruction >>> OP_BITS];
+                    break;
+                case LOAD_NEGATED:
+                    stack[++top] = ~columns[instruction >>> OP_BITS];
+                    break;
+                case TRUE:
+                    stack[++top] = -1L;
+                    break;
+                case FALSE:
+                    stack[++top] = 0L;
+                    break;
+                case NOT:
+                    stack[top] = ~stack[top];
+                    break;
+                case AND:
+                    top--;
+                    stack[top] &= stack[top + 1];
+                    break;
+                case OR:
+                    top--;
+                    stack[top] |= stack[top + 1];
+                    break;
+                case IMPLIES:
+                    top--;
+                    stack[top] = ~stack[top] | stack[top + 1];
+                    break;
+                case IFF:
+                    top--;
+                    stack[top] = ~(stack[top] ^ stack[top + 1]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unrecognised instruction: " + instruction);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * @return slot of the given raw literal, -1 if it is not in this program
+     */
+    public int getSlot(String raw_literal) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(raw_literal)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the instructions of this program in readable form
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int instruction : code) {
+            if (sb.length() > 0) sb.append(' ');
+            int operand = instruction >>> OP_BITS;
+            switch (instruction & OP_MASK) {
+                case LOAD: sb.append(variables[operand]); break;
+                case LOAD_NEGATED: sb.append('~').append(variables[operand]); break;
+                case TRUE: sb.append('T'); break;
+                case FALSE: sb.append('F'); break;
+                case NOT: sb.append("NOT"); break;
+                case AND: sb.append("AND"); break;
+                case OR: sb.append("OR"); break;
+                case IMPLIES: sb.append("IMPLIES"); break;
+                case IFF: sb.append("IFF"); break;
+                default: sb.append('?'); break;
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Program)) return false;
+        Program program = (Program) other;
+        return Arrays.equals(code, program.code) && Arrays.equals(variables, program.variables);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(code) + Arrays.hashCode(variables);
+    }
+}
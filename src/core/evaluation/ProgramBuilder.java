@@ -0,0 +1,127 @@
+package core.evaluation;
+
+import core.symbols.Connective;
+import core.symbols.Literal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static core.evaluation.Program.*;
+
+/**
+ * Collect postfix instructions emitted by the nodes of a tree, see Node.compile
+ *
+ * Literals get slots in order of first appearance unless the slots are fixed at construction.
+ * Double negations and negated literals are folded while emitting.
+ */
+public class ProgramBuilder {
+
+    private final Map<String, Integer> slots;  // raw literal -> slot
+    private final List<String> variables;
+    private boolean fixed_slots;
+    private int[] code;
+    private int size;
+    private int depth, max_depth;
+
+    public ProgramBuilder() {
+        slots = new HashMap<>();
+        variables = new ArrayList<>();
+        fixed_slots = false;
+        code = new int[16];
+    }
+
+    /**
+     * @param literals slot i is given to literals[i], any other literal is rejected
+     */
+    public ProgramBuilder(Literal[] literals) {
+        this();
+        for (Literal literal : literals) {
+            slotOf(literal.getRaw());
+        }
+        fixed_slots = true;
+    }
+
+    private int slotOf(String raw) {
+        Integer slot = slots.get(raw);
+        if (slot == null) {
+            if (fixed_slots) {
+                throw new IllegalArgumentException(String.format("Literal \"%s\" has no slot", raw));
+            }
+            slot = variables.size();
+            slots.put(raw, slot);
+            variables.add(raw);
+        }
+        return slot;
+    }
+
+    private void emit(int instruction, int depth_change) {
+        if (size == code.length) code = Arrays.copyOf(code, size * 2);
+        code[size++] = instruction;
+        depth += depth_change;
+        max_depth = Math.max(max_depth, depth);
+    }
+
+    public void emitLiteral(Literal literal) {
+        if (literal.isTautology()) {
+            emit(TRUE, 1);
+        } else if (literal.isContradiction()) {
+            emit(FALSE, 1);
+        } else {
+            int slot = slotOf(literal.getRaw());
+            emit(slot << OP_BITS | (literal.isNegated() ? LOAD_NEGATED : LOAD), 1);
+        }
+    }
+
+    public void emitNegation() {
+        if (size == 0) throw new IllegalStateException("Negation with empty stack");
+        int last = code[size - 1];
+        switch (last & OP_MASK) {
+            case NOT:
+                size--;  // ~~a == a
+                break;
+            case LOAD:
+                code[size - 1] = last & ~OP_MASK | LOAD_NEGATED;
+                break;
+            case LOAD_NEGATED:
+                code[size - 1] = last & ~OP_MASK | LOAD;
+                break;
+            case TRUE:
+                code[size - 1] = FALSE;
+                break;
+            case FALSE:
+                code[size - 1] = TRUE;
+                break;
+            default:
+                emit(NOT, 0);
+                break;
+        }
+    }
+
+    public void emitConnective(Connective.Type type) {
+        if (depth < 2) throw new IllegalStateException("Connective with less than two values on stack");
+        switch (type) {
+            case AND:
+                emit(AND, -1);
+                break;
+            case OR:
+                emit(OR, -1);
+                break;
+            case IMPLIES:
+                emit(IMPLIES, -1);
+                break;
+            case IFF:
+                emit(IFF, -1);
+                break;
+            default:
+                throw new IllegalStateException("Unrecognised connective type");
+        }
+    }
+
+    public Program build() {
+        if (depth != 1) throw new IllegalStateException("Incomplete program, stack depth: " + depth);
+        return new Program(Arrays.copyOf(code, size), variables.toArray(new String[0]), max_depth);
+    }
+}
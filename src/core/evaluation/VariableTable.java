@@ -0,0 +1,76 @@
+package core.evaluation;
+
+import core.symbols.Literal;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dense indexes of the raw literals of a formula, index i is the i-th distinct raw literal
+ *
+ * The parser gives every LitNode the index of its raw literal, so that evaluating it against
+ * an Assignment is an array read instead of a hash lookup. Tautology and contradiction are not variables.
+ */
+public class VariableTable {
+
+    private final Map<String, Integer> indexes;
+    private String[] names;
+    private int size;
+
+    public VariableTable() {
+        indexes = new HashMap<>();
+        names = new String[8];
+        size = 0;
+    }
+
+    /**
+     * @return index of the given raw literal, a new index is given if it is not in this table
+     */
+    public int add(String raw) {
+        Integer index = indexes.get(raw);
+        if (index != null) return index;
+        if (size == names.length) names = Arrays.copyOf(names, size * 2);
+        names[size] = raw;
+        indexes.put(raw, size);
+        return size++;
+    }
+
+    /**
+     * @return index of the given raw literal, -1 if it is not in this table
+     */
+    public int indexOf(String raw) {
+        Integer index = indexes.get(raw);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @return packed code of the given literal, see PackedLiteral, its raw literal is added if not in this table
+     */
+    public int encode(Literal literal) {
+        if (literal.isTautology()) return PackedLiteral.TRUE;
+        if (literal.isContradiction()) return PackedLiteral.FALSE;
+        return PackedLiteral.of(add(literal.getRaw()), literal.isNegated());
+    }
+
+    public String getName(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("Variable index %s out of bounds for size %s",
+                    index, size));
+        }
+        return names[index];
+    }
+
+    public String[] getNames() {
+        return Arrays.copyOf(names, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(getNames());
+    }
+}
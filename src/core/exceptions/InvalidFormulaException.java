@@ -1,19 +1,38 @@
 package core.exceptions;
 
 public class InvalidFormulaException extends RuntimeException {
+
+    private final long offset;  // index of the invalid char in the formula, -1 if unknown
+
     public InvalidFormulaException() {
         super();
+        offset = -1;
     }
 
     public InvalidFormulaException(String message) {
         super(message);
+        offset = -1;
+    }
+
+    public InvalidFormulaException(String message, long offset) {
+        super(message);
+        this.offset = offset;
     }
 
     public InvalidFormulaException(String message, Throwable cause) {
         super(message, cause);
+        offset = -1;
     }
 
     public InvalidFormulaException(Throwable cause) {
         super(cause);
+        offset = -1;
+    }
+
+    /**
+     * @return index of the char where the formula became invalid, -1 if unknown
+     */
+    public long getOffset() {
+        return offset;
     }
 }
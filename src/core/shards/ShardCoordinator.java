@@ -0,0 +1,256 @@
+package core.shards;
+
+import core.TruthTable;
+import core.trees.Fingerprint;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Split the truth table of a formula into 2^shard_bits prefix shards and evaluate them in worker processes
+ *
+ * Workers are local JVMs running ShardWorker with the class path of this JVM, they share a directory with the
+ * coordinator: each writes shard-i.bin when done and its output into shard-i.log. A shard whose worker fails or
+ * leaves no valid result is started again, up to max_attempts times. A worker running longer than the shard
+ * timeout is killed and its shard started again the same way. Shards of the same formula already in the
+ * directory are reused, so a coordinator can be restarted after a crash. Workers still running when run returns or throws are killed.
+ */
+public class ShardCoordinator {
+
+    private static final int max_attempts = 3;
+    private static final Duration default_shard_timeout = Duration.ofHours(1);
+
+    private final String formula;
+    private final Path directory;
+    private final int workers;
+    private final int shard_bits;
+    private final String[] variables;
+    private final Fingerprint fingerprint;  // of the parsed formula, a shard file of another formula is invalid
+    private final long total_words;
+    private final long shard_timeout_nanos;
+
+    /**
+     * @param shard_bits requested prefix bits, reduced so that every shard has at least one word of 64 rows
+     */
+    public ShardCoordinator(String formula, Path directory, int workers, int shard_bits) {
+        this(formula, directory, workers, shard_bits, default_shard_timeout);
+    }
+
+    /**
+     * @param shard_bits requested prefix bits, reduced so that every shard has at least one word of 64 rows
+     * @param shard_timeout a worker running longer than this is killed and its shard started again
+     */
+    public ShardCoordinator(String formula, Path directory, int workers, int shard_bits, Duration shard_timeout) {
+        if (workers <= 0 || shard_bits < 0) {
+            throw new IllegalArgumentException(String.format("Invalid workers %s or shard bits %s",
+                    workers, shard_bits));
+        }
+        if (shard_timeout.isNegative() || shard_timeout.isZero()) {
+            throw new IllegalArgumentException("Shard timeout must be positive: " + shard_timeout);
+        }
+        shard_timeout_nanos = shard_timeout.toNanos();
+        TruthTable truth_table = new TruthTable();
+        truth_table.evaluate(formula);  // fail here rather than in every worker
+        this.formula = formula;
+        this.directory = directory;
+        this.workers = workers;
+        variables = truth_table.getVariableNames();
+        fingerprint = truth_table.getTree().getFingerprint();
+        total_words = Math.max(1, 1L << variables.length >>> 6);
+        this.shard_bits = Math.min(shard_bits, Long.numberOfTrailingZeros(total_words));
+    }
+
+    public int getShardBits() {
+        return shard_bits;
+    }
+
+    /**
+     * Run the workers and merge their results
+     *
+     * @param with_models also merge the truth value columns, only possible when the table fits in one array
+     * @throws IllegalStateException if a shard still fails after max_attempts
+     */
+    public Result run(boolean with_models) {
+        if (with_models && total_words > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException(String.format("Too many literals to merge models: %s", variables.length));
+        }
+        long shard_count = 1L << shard_bits;
+        long[] models = with_models ? new long[(int) total_words] : null;
+        long model_count = 0;
+        int[] attempts = new int[(int) shard_count];
+        Deque<Long> pending = new ArrayDeque<>();
+        BlockingQueue<Process> finished = new LinkedBlockingQueue<>();
+        Map<Process, Long> running = new HashMap<>();  // worker -> its shard
+        Map<Process, Long> deadlines = new HashMap<>();  // worker -> System.nanoTime when it is killed
+        try {
+            Files.createDirectories(directory);
+            for (long shard = 0; shard < shard_count; shard++) {
+                // left by an earlier run, validated like any other result
+                ShardFile result = read(shard);
+                if (result == null) {
+                    pending.add(shard);
+                    continue;
+                }
+                model_count += merge(result, models);
+            }
+            while (!pending.isEmpty() || !running.isEmpty()) {
+                while (!pending.isEmpty() && running.size() < workers) {
+                    long shard = pending.poll();
+                    attempts[(int) shard]++;
+                    Process process = start(shard);
+                    running.put(process, shard);
+                    deadlines.put(process, System.nanoTime() + shard_timeout_nanos);
+                    process.onExit().thenRun(() -> finished.add(process));
+                }
+                long wait = Long.MAX_VALUE;
+                for (long deadline : deadlines.values()) {
+                    wait = Math.min(wait, deadline - System.nanoTime());
+                }
+                Process process = finished.poll(Math.max(0, wait), TimeUnit.NANOSECONDS);
+                if (process == null) {
+                    // kill the workers past their deadline, a hanging worker never exits by itself
+                    List<Process> expired = new ArrayList<>();
+                    long now = System.nanoTime();
+                    for (Map.Entry<Process, Long> entry : deadlines.entrySet()) {
+                        if (entry.getValue() - now <= 0) expired.add(entry.getKey());
+                    }
+                    for (Process worker : expired) {
+                        // wait until it is gone, otherwise it may still move its result over the one of the retry
+                        worker.destroyForcibly().waitFor();
+                        deadlines.remove(worker);
+                        retry(running.remove(worker), attempts, pending, "timed out");
+                    }
+                    continue;
+                }
+                Long shard = running.remove(process);
+                deadlines.remove(process);
+                if (shard == null) continue;  // killed after its deadline, already started again
+                ShardFile result = read(shard);
+                if (result == null) {
+                    retry(shard, attempts, pending, "failed");
+                    continue;
+                }
+                model_count += merge(result, models);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for workers", e);
+        } finally {
+            for (Process process : running.keySet()) {
+                process.destroyForcibly();
+            }
+        }
+        return new Result(variables.clone(), model_count, models);
+    }
+
+    // copy the columns of the shard into models if not null, return its model count
+    private long merge(ShardFile result, long[] models) {
+        if (models != null) {
+            int words = result.words.length;
+            System.arraycopy(result.words, 0, models, (int) (result.shard * words), words);
+        }
+        return result.model_count;
+    }
+
+    private void retry(long shard, int[] attempts, Deque<Long> pending, String reason) {
+        if (attempts[(int) shard] >= max_attempts) {
+            throw new IllegalStateException(String.format("Shard %s %s %s times, see %s",
+                    shard, reason, attempts[(int) shard], ShardFile.logPath(directory, shard)));
+        }
+        pending.add(shard);
+    }
+
+    private Process start(long shard) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Path log = ShardFile.logPath(directory, shard);
+        return new ProcessBuilder(java, "-cp", getClassPath(), ShardWorker.class.getName(),
+                formula, Long.toString(shard), Integer.toString(shard_bits), directory.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log.toFile()))
+                .start();
+    }
+
+    // the class path of this JVM may not contain this class, e.g. when loaded by a test runner
+    private static String getClassPath() {
+        String class_path = System.getProperty("java.class.path");
+        CodeSource source = ShardWorker.class.getProtectionDomain().getCodeSource();
+        if (source == null) return class_path;
+        try {
+            String location = Paths.get(source.getLocation().toURI()).toString();
+            return class_path.isEmpty() ? location : location + File.pathSeparator + class_path;
+        } catch (URISyntaxException e) {
+            return class_path;
+        }
+    }
+
+    // null if the shard has no valid result, which is then removed so a retry starts clean
+    private ShardFile read(long shard) throws IOException {
+        Path path = ShardFile.resultPath(directory, shard);
+        if (!Files.exists(path)) return null;
+        try {
+            ShardFile result = ShardFile.read(path);
+            if (result.formula.equals(fingerprint) && result.shard == shard && result.shard_bits == shard_bits
+                    && Arrays.equals(result.variables, variables)
+                    && result.words.length == total_words >>> shard_bits) {
+                return result;
+            }
+        } catch (IOException ignored) {
+            // corrupted, evaluate again
+        }
+        Files.delete(path);
+        return null;
+    }
+
+    /**
+     * Merged result of all shards
+     */
+    public static class Result {
+
+        private final String[] variables;
+        private final long model_count;
+        private final long[] models;
+
+        private Result(String[] variables, long model_count, long[] models) {
+            this.variables = variables;
+            this.model_count = model_count;
+            this.models = models;
+        }
+
+        /**
+         * @return variable names, same order as TruthTable.getVariableNames
+         */
+        public String[] getVariableNames() {
+            return variables.clone();
+        }
+
+        public long countModels() {
+            return model_count;
+        }
+
+        /**
+         * @return truth value column in the layout of TruthTable.generateBits, null if models were not merged
+         */
+        public long[] getModels() {
+            return models;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package core.shards;
+
+import core.trees.Fingerprint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Result of one shard in the shared directory
+ *
+ * Layout (big endian): magic, version, high and low long of the formula fingerprint, variable count,
+ * variable names, shard, shard bits, model count, word count, words of the truth value column
+ */
+class ShardFile {
+
+    private final static int magic = 0x504C5453;  // PLTS
+    private final static int version = 2;  // 2 added the formula fingerprint
+
+    final Fingerprint formula;  // see Node.getFingerprint, results of another formula are never reused
+    final String[] variables;
+    final long shard;
+    final int shard_bits;
+    final long model_count;
+    final long[] words;
+
+    ShardFile(Fingerprint formula, String[] variables, long shard, int shard_bits, long model_count, long[] words) {
+        this.formula = formula;
+        this.variables = variables;
+        this.shard = shard;
+        this.shard_bits = shard_bits;
+        this.model_count = model_count;
+        this.words = words;
+    }
+
+    static Path resultPath(Path directory, long shard) {
+        return directory.resolve(String.format("shard-%s.bin", shard));
+    }
+
+    static Path logPath(Path directory, long shard) {
+        return directory.resolve(String.format("shard-%s.log", shard));
+    }
+
+    static ShardFile read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != magic || in.readInt() != version) {
+                throw new IOException(String.format("Not a shard file: %s", path));
+            }
+            Fingerprint formula = new Fingerprint(in.readLong(), in.readLong());
+            String[] variables = new String[in.readInt()];
+            for (int i = 0; i < variables.length; i++) {
+                variables[i] = in.readUTF();
+            }
+            long shard = in.readLong();
+            int shard_bits = in.readInt();
+            long model_count = in.readLong();
+            long[] words = new long[in.readInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readLong();
+            }
+            return new ShardFile(formula, variables, shard, shard_bits, model_count, words);
+        }
+    }
+
+    /**
+     * Write into a temporary file and move it into place, so the coordinator never reads a partial result
+     * The temporary file is named after this process, two workers of the same shard never write the same one
+     */
+    void write(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(magic);
+            out.writeInt(version);
+            out.writeLong(formula.getHigh());
+            out.writeLong(formula.getLow());
+            out.writeInt(variables.length);
+            for (String variable : variables) {
+                out.writeUTF(variable);
+            }
+            out.writeLong(shard);
+            out.writeInt(shard_bits);
+            out.writeLong(model_count);
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package core.shards;
+
+import core.TruthTable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Worker process of ShardCoordinator, evaluates the rows of one prefix shard and writes them to the shared directory
+ *
+ * Usage: ShardWorker formula shard shard_bits directory
+ */
+public class ShardWorker {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("Usage: ShardWorker formula shard shard_bits directory");
+            System.exit(2);
+        }
+        long shard = Long.parseLong(args[1]);
+        int shard_bits = Integer.parseInt(args[2]);
+        Path directory = Paths.get(args[3]);
+        run(args[0], shard, shard_bits).write(ShardFile.resultPath(directory, shard));
+    }
+
+    // shard s covers words [s * words, (s + 1) * words) of the truth value column
+    static ShardFile run(String formula, long shard, int shard_bits) {
+        TruthTable truth_table = new TruthTable();
+        truth_table.evaluate(formula);
+        String[] variables = truth_table.getVariableNames();
+        long total_words = Math.max(1, 1L << variables.length >>> 6);
+        long shard_words = total_words >>> shard_bits;
+        if (shard < 0 || shard >= 1L << shard_bits || shard_words == 0 || shard_words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Invalid shard %s of %s bits for %s variables",
+                    shard, shard_bits, variables.length));
+        }
+        long[] words = truth_table.generateBits(shard * shard_words, (int) shard_words);
+        long model_count = 0;
+        for (long word : words) {
+            model_count += Long.bitCount(word);
+        }
+        return new ShardFile(truth_table.getTree().getFingerprint(), variables, shard, shard_bits, model_count, words);
+    }
+}
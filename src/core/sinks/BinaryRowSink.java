@@ -0,0 +1,61 @@
+package core.sinks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Packed binary rows
+ *
+ * Header (big endian): magic, column count, then for each column the length of its UTF-8 title as a short
+ * followed by the title.
+ * Each row is (column count + 8) / 8 bytes, bit i of the row (byte i / 8, bit i % 8) is column i
+ * and bit column count is the truth value of the formula.
+ */
+public class BinaryRowSink extends BufferedRowSink {
+
+    public static final int magic = 0x504C5452;  // PLTR
+
+    private int column_count;
+    private byte[] row;
+
+    public BinaryRowSink(OutputStream out) {
+        super(out);
+    }
+
+    private void writeInt(int value) throws IOException {
+        write(value >>> 24);
+        write(value >>> 16);
+        write(value >>> 8);
+        write(value);
+    }
+
+    @Override
+    public void begin(String[] columns) throws IOException {
+        if (columns.length > Long.SIZE) {
+            throw new IllegalArgumentException(String.format("Too many columns: %s", columns.length));
+        }
+        column_count = columns.length;
+        row = new byte[(column_count + Byte.SIZE) / Byte.SIZE];
+        writeInt(magic);
+        writeInt(column_count);
+        for (String column : columns) {
+            byte[] title = bytes(column);
+            if (title.length > Short.MAX_VALUE) throw new IllegalArgumentException("Column title too long");
+            write(title.length >>> 8);
+            write(title.length);
+            write(title);
+        }
+    }
+
+    @Override
+    public void row(long columns, boolean value) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            row[i] = i < Long.BYTES ? (byte) (columns >>> i * Byte.SIZE) : 0;
+        }
+        if (column_count < Long.SIZE) {
+            row[column_count / Byte.SIZE] &= (byte) ((1 << column_count % Byte.SIZE) - 1);  // clear unused columns
+        }
+        if (value) row[column_count / Byte.SIZE] |= (byte) (1 << column_count % Byte.SIZE);
+        write(row);
+    }
+}
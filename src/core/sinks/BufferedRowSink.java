@@ -0,0 +1,60 @@
+package core.sinks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base of the sinks writing bytes into an OutputStream through their own buffer
+ */
+public abstract class BufferedRowSink implements RowSink {
+
+    private static final int buffer_size = 1 << 16;
+    protected static final String truth_value_title = "Truth Value";
+    protected static final byte[] line_separator = bytes(System.lineSeparator());
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[buffer_size];
+    private int count;
+
+    protected BufferedRowSink(OutputStream out) {
+        this.out = out;
+    }
+
+    protected static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    protected void write(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - count) {
+            flushBuffer();
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+
+    protected void write(int b) throws IOException {
+        if (count == buffer.length) flushBuffer();
+        buffer[count++] = (byte) b;
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, count);
+        count = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void end() throws IOException {
+        flush();
+    }
+}
@@ -0,0 +1,43 @@
+package core.sinks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Comma separated values with a title row, truth values are written as 1 and 0
+ */
+public class CsvRowSink extends BufferedRowSink {
+
+    private int column_count;
+
+    public CsvRowSink(OutputStream out) {
+        super(out);
+    }
+
+    // quote fields containing separators, quotes or line breaks (RFC 4180)
+    private static String quote(String field) {
+        if (field.chars().noneMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) return field;
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void begin(String[] columns) throws IOException {
+        column_count = columns.length;
+        StringBuilder header = new StringBuilder();
+        for (String column : columns) {
+            header.append(quote(column)).append(',');
+        }
+        write(bytes(header.append(truth_value_title).toString()));
+        write(line_separator);
+    }
+
+    @Override
+    public void row(long columns, boolean value) throws IOException {
+        for (int i = 0; i < column_count; i++) {
+            write((columns >>> i & 1) == 1 ? '1' : '0');
+            write(',');
+        }
+        write(value ? '1' : '0');
+        write(line_separator);
+    }
+}
@@ -0,0 +1,58 @@
+package core.sinks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Markdown table, columns are padded to their title so the source stays readable
+ */
+public class MarkdownRowSink extends BufferedRowSink {
+
+    private byte[][] true_cells, false_cells;
+    private byte[] true_value_cell, false_value_cell;
+
+    public MarkdownRowSink(OutputStream out) {
+        super(out);
+    }
+
+    // left align text in a cell of the given width
+    private static String cell(String text, int width) {
+        return "| " + text + " ".repeat(width - text.length() + 1);
+    }
+
+    // pipes in titles would end the cell early
+    private static String escape(String title) {
+        return title.replace("|", "\\|");
+    }
+
+    @Override
+    public void begin(String[] columns) throws IOException {
+        StringBuilder header = new StringBuilder();
+        StringBuilder delimiter = new StringBuilder();
+        true_cells = new byte[columns.length][];
+        false_cells = new byte[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            String title = escape(columns[i]);
+            int width = Math.max(title.length(), "false".length());
+            header.append(cell(title, width));
+            delimiter.append(cell("-".repeat(width), width));
+            true_cells[i] = bytes(cell("true", width));
+            false_cells[i] = bytes(cell("false", width));
+        }
+        int width = truth_value_title.length();
+        header.append(cell(truth_value_title, width)).append('|').append(System.lineSeparator());
+        delimiter.append(cell("-".repeat(width), width)).append('|').append(System.lineSeparator());
+        true_value_cell = bytes(cell("true", width) + "|" + System.lineSeparator());
+        false_value_cell = bytes(cell("false", width) + "|" + System.lineSeparator());
+        write(bytes(header.toString()));
+        write(bytes(delimiter.toString()));
+    }
+
+    @Override
+    public void row(long columns, boolean value) throws IOException {
+        for (int i = 0; i < true_cells.length; i++) {
+            write((columns >>> i & 1) == 1 ? true_cells[i] : false_cells[i]);
+        }
+        write(value ? true_value_cell : false_value_cell);
+    }
+}
@@ -0,0 +1,34 @@
+package core.sinks;
+
+import java.io.IOException;
+
+/**
+ * Receives the rows of a truth table, see TruthTable.generate(RowSink)
+ *
+ * Rows are given as primitive bits so a sink can encode them without formatting or boxing.
+ */
+public interface RowSink {
+
+    /**
+     * Called once before the first row
+     *
+     * @param columns raw literals of the columns, at most 64, the truth value column is not included
+     */
+    void begin(String[] columns) throws IOException;
+
+    /**
+     * @param columns bit i is the truth value of column i
+     * @param value   truth value of the formula
+     */
+    void row(long columns, boolean value) throws IOException;
+
+    /**
+     * Write everything received so far into the output
+     */
+    void flush() throws IOException;
+
+    /**
+     * Called once after the last row, output is flushed but not closed
+     */
+    void end() throws IOException;
+}
@@ -0,0 +1,62 @@
+package core.sinks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Fixed width text table like TruthTable.generate, but each column is only as wide as its title
+ * and every cell is encoded once in begin
+ */
+public class TextRowSink extends BufferedRowSink {
+
+    private byte[] separator;
+    private byte[][] true_cells, false_cells;
+    private byte[] true_value_cell, false_value_cell;
+
+    public TextRowSink(OutputStream out) {
+        super(out);
+    }
+
+    // right align text in a cell of the given width
+    private static String cell(String text, int width) {
+        return "|" + " ".repeat(width - text.length()) + text;
+    }
+
+    @Override
+    public void begin(String[] columns) throws IOException {
+        StringBuilder separator = new StringBuilder();
+        StringBuilder header = new StringBuilder();
+        true_cells = new byte[columns.length][];
+        false_cells = new byte[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            int width = Math.max(columns[i].length(), "false".length());
+            separator.append(cell("-".repeat(width), width));
+            header.append(cell(columns[i], width));
+            true_cells[i] = bytes(cell("true", width));
+            false_cells[i] = bytes(cell("false", width));
+        }
+        int width = truth_value_title.length();
+        separator.append(cell("-".repeat(width), width)).append('|').append(System.lineSeparator());
+        header.append(cell(truth_value_title, width)).append('|').append(System.lineSeparator());
+        true_value_cell = bytes(cell("true", width) + "|" + System.lineSeparator());
+        false_value_cell = bytes(cell("false", width) + "|" + System.lineSeparator());
+        this.separator = bytes(separator.toString());
+        write(this.separator);
+        write(bytes(header.toString()));
+        write(this.separator);
+    }
+
+    @Override
+    public void row(long columns, boolean value) throws IOException {
+        for (int i = 0; i < true_cells.length; i++) {
+            write((columns >>> i & 1) == 1 ? true_cells[i] : false_cells[i]);
+        }
+        write(value ? true_value_cell : false_value_cell);
+    }
+
+    @Override
+    public void end() throws IOException {
+        write(separator);
+        super.end();
+    }
+}
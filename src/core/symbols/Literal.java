@@ -4,19 +4,22 @@ import core.exceptions.InvalidSymbolException;
 import core.trees.LitNode;
 import core.trees.Node;
 
-import java.util.HashMap;
 import java.util.Objects;
 
 public class Literal extends Symbol {
 
-    private final static HashMap<Integer, Literal> created_instances = new HashMap<>();
+    // keyed by raw literal and negation, parsers on different threads create literals concurrently
+    // literals are held weakly, so names no formula refers to anymore do not stay for the life of the jvm
+    private final static LiteralTable created_instances = new LiteralTable();
 
     private final static Literal tautology = Literal.newInstance("T");
     private final static Literal contradiction = Literal.newInstance("F");
 
     private String rawLiteral;
     private boolean isNegated;
-    private Boolean rawLiteralTruthValue, isRawTautology;
+    // truth values as bytes instead of boxed Booleans: one of UNKNOWN, FALSE, TRUE
+    private final static byte UNKNOWN = -1, FALSE = 0, TRUE = 1;
+    private byte rawLiteralTruthValue = UNKNOWN, rawConstant = UNKNOWN;  // rawConstant is set for T and F only
     private int hashcode;
 
 
@@ -28,6 +31,14 @@ public class Literal extends Symbol {
         return contradiction;
     }
 
+    /**
+     * @return a snapshot of the size and lookup counters of the pool behind newInstance
+     */
+    public static PoolStatistics getPoolStatistics() {
+        return new PoolStatistics(created_instances.size(), created_instances.getHits(),
+                created_instances.getMisses(), created_instances.getEvictions());
+    }
+
     private Literal() {
     } // empty private constructor
 
@@ -49,13 +60,13 @@ public class Literal extends Symbol {
         this.isNegated = isNegated;
 
         if (rawLiteral.equals(Character.toString(TAUTOLOGY))) {
-            this.isRawTautology = this.rawLiteralTruthValue = true;
+            this.rawConstant = this.rawLiteralTruthValue = TRUE;
 
         } else if (rawLiteral.equals(Character.toString(CONTRADICTION))) {
-            this.isRawTautology = this.rawLiteralTruthValue = false;
+            this.rawConstant = this.rawLiteralTruthValue = FALSE;
 
         } else {
-            this.isRawTautology = this.rawLiteralTruthValue = null;
+            this.rawConstant = this.rawLiteralTruthValue = UNKNOWN;
         }
 
         hashcode = Objects.hashCode(this.rawLiteral);
@@ -157,16 +168,14 @@ public class Literal extends Symbol {
          * raw literal will be between pointers here
          */
 
+        // if this literal has already created then just return the old instance
+        Literal instance = created_instances.get(chars, startPointer, endPointer - startPointer + 1, isNegated);
+        if (instance != null) return instance;
+
         // get the raw literal, before checks if it is valid
         // so that we can easily print it if not valid
         String rawLiteral = String.valueOf(chars, startPointer, endPointer - startPointer + 1);
 
-        // if this literal has already created then just return the old instance
-        int key = Objects.hashCode(rawLiteral) ^ Objects.hashCode(isNegated);
-        if (created_instances.containsKey(key)) {
-            return created_instances.get(key);
-        }
-
         // now we are creating new instance,
         // check if the raw string characters are letters
         for (int i = startPointer; i <= endPointer; i++) {
@@ -177,10 +186,25 @@ public class Literal extends Symbol {
             }
         }
 
-        // everything checked, return Literal instance
-        Literal new_instance = new Literal(rawLiteral, isNegated);
-        created_instances.put(key, new_instance);
-        return new_instance;
+        // everything checked, return Literal instance, another thread may have created it meanwhile
+        final boolean negated = isNegated;
+        return created_instances.computeIfAbsent(rawLiteral, negated, () -> new Literal(rawLiteral, negated));
+    }
+
+    /**
+     * Same as newInstance(String.valueOf(chars, offset, count)) for a raw literal without negation or brackets,
+     * but an existing instance is found without creating the String
+     *
+     * @throws InvalidSymbolException if the range is empty or contains a non letter
+     */
+    public static Literal newInstance(char[] chars, int offset, int count)
+            throws InvalidSymbolException {
+        if (count <= 0) {
+            throw new InvalidSymbolException("Raw form is blank for literal");
+        }
+        Literal instance = created_instances.get(chars, offset, count, false);
+        if (instance != null) return instance;
+        return newInstance(String.valueOf(chars, offset, count));  // not created yet, also checks the letters
     }
 
     /*
@@ -198,16 +222,20 @@ public class Literal extends Symbol {
     }
 
     public boolean getTruthValue() {
-        if (this.rawLiteralTruthValue == null) {
+        if (this.rawLiteralTruthValue == UNKNOWN) {
             throw new IllegalStateException(String.format("Access truth value before assignment for literal: \"%s\"",
                     getFull()));
         }
-        return this.isNegated != this.rawLiteralTruthValue;  // same as isNegated ? !value : value;
+        return this.isNegated != (this.rawLiteralTruthValue == TRUE);  // same as isNegated ? !value : value;
     }
 
-    private Boolean getTruthValueOrNull() {
-        if (this.rawLiteralTruthValue == null) return null;
-        else return this.isNegated != this.rawLiteralTruthValue;
+    private byte getTruthValueByte() {
+        if (this.rawLiteralTruthValue == UNKNOWN) return UNKNOWN;
+        else return this.isNegated ? (byte) (1 - this.rawLiteralTruthValue) : this.rawLiteralTruthValue;
+    }
+
+    private static Boolean toBoolean(byte value) {
+        return value == UNKNOWN ? null : value == TRUE;
     }
 
     public void invertNegation() {
@@ -219,24 +247,24 @@ public class Literal extends Symbol {
     }
 
     public boolean isTautology() {
-        if (this.isRawTautology == null) return false;
-        return this.isNegated ? !this.isRawTautology : this.isRawTautology;
+        if (this.rawConstant == UNKNOWN) return false;
+        return this.isNegated != (this.rawConstant == TRUE);
     }
 
     public boolean isContradiction() {
-        if (this.isRawTautology == null) return false;
-        return this.isNegated ? this.isRawTautology : !this.isRawTautology;
+        if (this.rawConstant == UNKNOWN) return false;
+        return this.isNegated == (this.rawConstant == TRUE);
     }
 
     public boolean isAssigned() {
-        return this.rawLiteralTruthValue != null;
+        return this.rawLiteralTruthValue != UNKNOWN;
     }
 
     public String toString() {
         return String.format("Full literal: %s,%nRaw literal: %s,%nNegated: %s,%n" +
                         "Tautology: %s,%nContradiction: %s,%nAssigned raw value: %s,%nTruth value: %s",
                 this.getFull(), this.getRaw(), this.isNegated(), this.isTautology(),
-                this.isContradiction(), this.rawLiteralTruthValue, this.getTruthValueOrNull());
+                this.isContradiction(), toBoolean(this.rawLiteralTruthValue), toBoolean(this.getTruthValueByte()));
     }
 
     /*
@@ -253,21 +281,18 @@ public class Literal extends Symbol {
         }
         // we need to set two literals to the same truth value because
         // different negation when passed in is treated as different literal
-        int literal_true_hash = hashcode ^ Objects.hashCode(true);
-        if (created_instances.containsKey(literal_true_hash)) {
-            created_instances.get(literal_true_hash).rawLiteralTruthValue = value;
-        }
-        int literal_false_hash = hashcode ^ Objects.hashCode(false);
-        if (created_instances.containsKey(literal_false_hash)) {
-            created_instances.get(literal_false_hash).rawLiteralTruthValue = value;
-        }
+        // one lookup per polarity, a missing literal gives null
+        Literal negated = created_instances.get(rawLiteral, true);
+        Literal not_negated = created_instances.get(rawLiteral, false);
+        if (negated != null) negated.rawLiteralTruthValue = value ? TRUE : FALSE;
+        if (not_negated != null) not_negated.rawLiteralTruthValue = value ? TRUE : FALSE;
     }
 
     // override previous raw literal value if it is not tautology/contradiction
     // else stays the same
     public void assignIfNotTF(boolean value) {
         if (!this.isTautology() && !this.isContradiction()) {
-            this.rawLiteralTruthValue = value;
+            this.rawLiteralTruthValue = value ? TRUE : FALSE;
         }
     }
 
@@ -290,7 +315,7 @@ public class Literal extends Symbol {
         if (other == null) throw new InvalidSymbolException("Given literal for equals is null");
         else return this.rawLiteral.equals(other.rawLiteral)
                 && this.isNegated == other.isNegated
-                && this.getTruthValueOrNull() == other.getTruthValueOrNull();
+                && this.getTruthValueByte() == other.getTruthValueByte();
     }
 
     @Override
@@ -300,7 +325,8 @@ public class Literal extends Symbol {
 
     public int compareTo(Object other) {
         if (other instanceof Literal) {
-            return hashCode() - other.hashCode();
+            int compare = Integer.compare(hashCode(), other.hashCode());
+            return compare != 0 ? compare : rawLiteral.compareTo(((Literal) other).rawLiteral);
         } else {
             throw new InvalidSymbolException("Comparing non-Literal to Literal");
         }
@@ -309,10 +335,63 @@ public class Literal extends Symbol {
     @Override
     public boolean equals(Object other) {  // same iff raw literal is the same
         if (other instanceof Literal) {
-            return hashCode() == other.hashCode();
+            return hashCode() == other.hashCode() && rawLiteral.equals(((Literal) other).rawLiteral);
         } else {
             return false;
         }
     }
 
-}
\ No newline at end of file
+    public static class PoolStatistics {
+
+        private final int size;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+
+        private PoolStatistics(int size, long hits, long misses, long evictions) {
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        /**
+         * @return number of literals currently interned, each polarity counts separately
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * @return number of newInstance calls that returned an existing literal
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return number of newInstance calls that created a literal
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return number of literals removed after they were garbage collected
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Literal pool: size %d, hits %d, misses %d, hit rate %.3f, evictions %d",
+                    size, hits, misses, getHitRate(), evictions);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package core.symbols;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Interned literals keyed by raw name and polarity, see Literal.newInstance
+ *
+ * The table is split into segments by hash, each with its own lock for insertion.
+ * Lookups never lock: chains are immutable and published through an AtomicReferenceArray,
+ * so a hit only compares chars and allocates nothing, even for a name given as a char range.
+ *
+ * Literals are held weakly, a literal no longer referenced outside the table is collected
+ * and its entry removed on the next insertion or size query, counted as an eviction.
+ */
+class LiteralTable {
+
+    private static final int segment_bits = 4;  // 16 segments
+    private static final int initial_capacity = 16;  // buckets per segment, power of two
+
+    private final Segment[] segments = new Segment[1 << segment_bits];
+    private final ReferenceQueue<Literal> collected = new ReferenceQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    LiteralTable() {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    // same as String.hashCode of the range
+    static int hash(char[] chars, int offset, int count) {
+        int hash = 0;
+        for (int i = offset; i < offset + count; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return hash;
+    }
+
+    private static int spread(int hash, boolean negated) {
+        int h = hash ^ (negated ? 0x9E3779B9 : 0);
+        return h ^ (h >>> 16);
+    }
+
+    // the top bits of short names' hashes are all 0, multiply so every bit of the hash picks the segment
+    // buckets use the low bits of spread
+    private Segment segmentFor(int spread) {
+        return segments[(spread * 0x9E3779B9) >>> (Integer.SIZE - segment_bits)];
+    }
+
+    /**
+     * @return the literal of the given raw name and polarity, null if it is not interned
+     */
+    Literal get(String raw, boolean negated) {
+        int hash = raw.hashCode();
+        int spread = spread(hash, negated);
+        for (Entry entry = segmentFor(spread).head(spread); entry != null; entry = entry.next) {
+            if (entry.hash == hash && entry.negated == negated && entry.raw.equals(raw)) {
+                Literal literal = entry.get();
+                if (literal != null) return literal;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Same as get(String.valueOf(chars, offset, count), negated) without creating the String,
+     * this is the lookup of the factory methods so a found literal counts as a hit
+     */
+    Literal get(char[] chars, int offset, int count, boolean negated) {
+        int hash = hash(chars, offset, count);
+        int spread = spread(hash, negated);
+        for (Entry entry = segmentFor(spread).head(spread); entry != null; entry = entry.next) {
+            if (entry.hash == hash && entry.negated == negated && entry.matches(chars, offset, count)) {
+                Literal literal = entry.get();
+                if (literal != null) {
+                    hits.increment();
+                    return literal;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Called after get missed, counts a miss if the literal is created and a hit
+     * if another thread interned it in the meantime
+     *
+     * @param factory creates the literal, only called if no literal of the name and polarity is interned yet
+     * @return the interned literal, the same instance for every thread
+     */
+    Literal computeIfAbsent(String raw, boolean negated, Supplier<Literal> factory) {
+        expungeCollected();
+        int hash = raw.hashCode();
+        int spread = spread(hash, negated);
+        return segmentFor(spread).insert(raw, negated, hash, spread, factory);
+    }
+
+    /**
+     * @return number of interned literals, after removing the collected ones
+     */
+    int size() {
+        expungeCollected();
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    long getEvictions() {
+        return evictions.sum();
+    }
+
+    private void expungeCollected() {
+        Reference<? extends Literal> reference;
+        while ((reference = collected.poll()) != null) {
+            Entry entry = (Entry) reference;
+            segmentFor(entry.spread).expunge(entry.spread);
+        }
+    }
+
+    private static class Entry extends WeakReference<Literal> {
+        private final String raw;
+        private final boolean negated;
+        private final int hash;
+        private final int spread;
+        private final Entry next;
+
+        private Entry(String raw, boolean negated, int hash, int spread, Literal literal, Entry next,
+                      ReferenceQueue<Literal> queue) {
+            super(literal, queue);
+            this.raw = raw;
+            this.negated = negated;
+            this.hash = hash;
+            this.spread = spread;
+            this.next = next;
+        }
+
+        private boolean matches(char[] chars, int offset, int count) {
+            if (raw.length() != count) return false;
+            for (int i = 0; i < count; i++) {
+                if (raw.charAt(i) != chars[offset + i]) return false;
+            }
+            return true;
+        }
+    }
+
+    private class Segment {
+        private volatile AtomicReferenceArray<Entry> buckets = new AtomicReferenceArray<>(initial_capacity);
+        private volatile int size;  // written under the lock
+
+        private Entry head(int spread) {
+            AtomicReferenceArray<Entry> buckets = this.buckets;
+            return buckets.get(spread & (buckets.length() - 1));
+        }
+
+        private synchronized Literal insert(String raw, boolean negated, int hash, int spread,
+                                            Supplier<Literal> factory) {
+            AtomicReferenceArray<Entry> buckets = this.buckets;
+            int index = spread & (buckets.length() - 1);
+            for (Entry entry = buckets.get(index); entry != null; entry = entry.next) {
+                // inserted by another thread since the lock free lookup
+                if (entry.hash == hash && entry.negated == negated && entry.raw.equals(raw)) {
+                    Literal literal = entry.get();
+                    if (literal != null) {
+                        hits.increment();
+                        return literal;
+                    }
+                }
+            }
+            misses.increment();
+            Literal literal = factory.get();
+            buckets.set(index, new Entry(raw, negated, hash, spread, literal, buckets.get(index), collected));
+            size++;
+            if (size > buckets.length() * 3 / 4) resize(buckets);
+            return literal;
+        }
+
+        // chains are immutable, rebuild the bucket without collected entries, readers see either chain
+        private synchronized void expunge(int spread) {
+            AtomicReferenceArray<Entry> buckets = this.buckets;
+            int index = spread & (buckets.length() - 1);
+            Entry head = buckets.get(index);
+            int dropped = 0;
+            Entry new_head = null;
+            for (Entry entry = head; entry != null; entry = entry.next) {
+                Literal literal = entry.get();
+                if (literal == null) dropped++;
+                else new_head = new Entry(entry.raw, entry.negated, entry.hash, entry.spread, literal, new_head,
+                        collected);
+            }
+            // entries of a bucket polled earlier are already gone, then the chain is left alone
+            if (dropped == 0) return;
+            buckets.set(index, new_head);
+            size -= dropped;
+            evictions.add(dropped);
+        }
+
+        // copy into a table twice as large, readers keep using the old one until it is published
+        private void resize(AtomicReferenceArray<Entry> old_buckets) {
+            AtomicReferenceArray<Entry> new_buckets = new AtomicReferenceArray<>(old_buckets.length() * 2);
+            int mask = new_buckets.length() - 1;
+            int dropped = 0;
+            for (int i = 0; i < old_buckets.length(); i++) {
+                for (Entry entry = old_buckets.get(i); entry != null; entry = entry.next) {
+                    Literal literal = entry.get();
+                    if (literal == null) {
+                        dropped++;
+                        continue;
+                    }
+                    int index = entry.spread & mask;
+                    new_buckets.set(index, new Entry(entry.raw, entry.negated, entry.hash, entry.spread, literal,
+                            new_buckets.get(index), collected));
+                }
+            }
+            buckets = new_buckets;
+            size -= dropped;
+            evictions.add(dropped);
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package core.trees;
 
+import core.evaluation.Assignment;
+import core.evaluation.BitColumns;
+import core.evaluation.ProgramBuilder;
 import core.exceptions.InvalidInsertionException;
 import core.symbols.Literal;
 import core.symbols.Symbol;
 
+import java.util.Deque;
 import java.util.List;
 import java.util.Set;
 
@@ -62,6 +66,7 @@ public class BracketNode extends Node {
 
     @Override
     public Node insert(LitNode node) {
+        invalidateHash();
         if (isClosed()) {
             throw new InvalidInsertionException("Inserting Literal immediately after Right bracket");
         } else {
@@ -73,6 +78,7 @@ public class BracketNode extends Node {
 
     @Override
     public Node insert(BracketNode node) {
+        invalidateHash();
         if (isClosed()) {
             throw new InvalidInsertionException("Inserting Left bracket immediately after Right bracket");
         } else {
@@ -84,8 +90,10 @@ public class BracketNode extends Node {
 
     @Override
     public Node insert(ConnNode node) {
+        invalidateHash();
         if (isClosed()) {
             node.left = this;
+            node.invalidateHash();
             return node;
         } else {
             if (head == null) head = node;
@@ -96,6 +104,7 @@ public class BracketNode extends Node {
 
     @Override
     public Node insert(NegNode node) {
+        invalidateHash();
         if (isClosed()) {
             throw new InvalidInsertionException("Inserting Negation immediately after Right bracket");
         } else {
@@ -151,6 +160,7 @@ public class BracketNode extends Node {
 
     @Override
     public void _eliminateArrows() {
+        invalidateHash();
         ensureComplete();
         head._eliminateArrows();
     }
@@ -184,9 +194,19 @@ public class BracketNode extends Node {
     }
 
     @Override
-    public boolean equals(Object other) {
+    boolean _shallowEquals(Node other) {
         if (!(other instanceof BracketNode)) return false;
-        else return head.equals(((BracketNode) other).getHead());
+        else return other.hashCode() == hashCode() && (((BracketNode) other).head == null) == (head == null);
+    }
+
+    @Override
+    int computeHash() {
+        return BRACKET_TAG * 31 + hashOf(head);
+    }
+
+    @Override
+    Fingerprint computeFingerprint() {
+        return Fingerprint.of(BRACKET_TAG, null, fingerprintOf(head));
     }
 
     @Override
@@ -194,4 +214,32 @@ public class BracketNode extends Node {
         ensureComplete();
         return head.isTrue();
     }
+
+    @Override
+    public boolean isTrue(Assignment assignment) {
+        ensureComplete();
+        return head.isTrue(assignment);
+    }
+
+    @Override
+    void _pushChildren(Deque<Node> stack) {
+        if (head != null) stack.push(head);
+    }
+
+    @Override
+    void _pushOperands(Deque<Node> stack) {
+        ensureComplete();
+        stack.push(head);
+    }
+
+    @Override
+    void _emit(ProgramBuilder builder) {
+        // brackets only matter for parsing
+    }
+
+    @Override
+    void _evaluateBits(BitColumns columns, long[] result) {
+        ensureComplete();
+        head._evaluateBits(columns, result);
+    }
 }
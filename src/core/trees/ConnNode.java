@@ -1,5 +1,8 @@
 package core.trees;
 
+import core.evaluation.Assignment;
+import core.evaluation.BitColumns;
+import core.evaluation.ProgramBuilder;
 import core.exceptions.InvalidInsertionException;
 import core.exceptions.InvalidNodeException;
 import core.exceptions.InvalidSymbolException;
@@ -31,6 +34,7 @@ public class ConnNode extends BinaryNode {
     }
 
     private void changeTypeTo(Connective.Type type) {
+        invalidateHash();
         Connective new_conn;
         switch (type) {
             case AND:
@@ -63,6 +67,7 @@ public class ConnNode extends BinaryNode {
 
     @Override
     public Node insert(LitNode node) {
+        invalidateHash();
         if (left == null) {
             left = node;
         } else if (right == null) {
@@ -75,6 +80,7 @@ public class ConnNode extends BinaryNode {
 
     @Override
     public Node insert(BracketNode node) {
+        invalidateHash();
         if (left == null) {
             left = node;
         } else if (right == null) {
@@ -87,10 +93,12 @@ public class ConnNode extends BinaryNode {
 
     @Override
     public Node insert(ConnNode node) {
+        invalidateHash();
         if (left  == null) {
             throw new InvalidInsertionException("Inserting connective immediately before connective");
         } else if (node.getPrecedence() >= this.getPrecedence()) {
             node.left = this;
+            node.invalidateHash();
             return node;
         } else {
             if (right == null) {
@@ -104,6 +112,7 @@ public class ConnNode extends BinaryNode {
 
     @Override
     public Node insert(NegNode node) {
+        invalidateHash();
         if (left == null) throw new InvalidInsertionException("Inserting Negation immediately before connective");
         else if (right == null) right = node;
         else right.insert(node);
@@ -127,6 +136,67 @@ public class ConnNode extends BinaryNode {
         }
     }
 
+    @Override
+    void _evaluateBits(BitColumns columns, long[] result) {
+        ensureFullNode();
+        left._evaluateBits(columns, result);
+        long[] right_result = columns.borrow();
+        right._evaluateBits(columns, right_result);
+        int words = columns.getWords();
+        switch (type) {
+            case AND:
+                for (int i = 0; i < words; i++) result[i] &= right_result[i];
+                break;
+            case OR:
+                for (int i = 0; i < words; i++) result[i] |= right_result[i];
+                break;
+            case IFF:
+                for (int i = 0; i < words; i++) result[i] = ~(result[i] ^ right_result[i]);
+                break;
+            case IMPLIES:
+                for (int i = 0; i < words; i++) result[i] = ~result[i] | right_result[i];
+                break;
+            default:
+                throw new IllegalStateException("Unrecognised Connective Type");
+        }
+        columns.release(right_result);
+    }
+
+    @Override
+    public boolean isTrue(Assignment assignment) {
+        ensureFullNode();
+        switch (type) {
+            case AND:
+                return left.isTrue(assignment) && right.isTrue(assignment);
+            case OR:
+                return left.isTrue(assignment) || right.isTrue(assignment);
+            case IFF:
+                return left.isTrue(assignment) == right.isTrue(assignment);
+            case IMPLIES:
+                return !left.isTrue(assignment) || right.isTrue(assignment);
+            default:
+                throw new IllegalStateException("Unrecognised Connective Type");
+        }
+    }
+
+    @Override
+    void _pushChildren(Deque<Node> stack) {
+        if (left != null) stack.push(left);
+        if (right != null) stack.push(right);
+    }
+
+    @Override
+    void _pushOperands(Deque<Node> stack) {
+        ensureFullNode();
+        stack.push(left);
+        stack.push(right);
+    }
+
+    @Override
+    void _emit(ProgramBuilder builder) {
+        builder.emitConnective(type);
+    }
+
     @Override
     public boolean isTautology() {
         switch(type) {
@@ -183,6 +253,7 @@ public class ConnNode extends BinaryNode {
 
     @Override
     public void _eliminateArrows() {
+        invalidateHash();
         ensureFullNode();
         if (type == Connective.Type.IMPLIES) {
             // a -> b == ~a \/ b
@@ -304,13 +375,25 @@ public class ConnNode extends BinaryNode {
     }
 
     @Override
-    public boolean equals(Object other) {
+    boolean _shallowEquals(Node other) {
         if (!(other instanceof ConnNode)) return false;
 
         ConnNode node = (ConnNode) other;
-        if (node.type != type) return false;
+        if (node.type != type || node.hashCode() != hashCode()) return false;
 
-        return Objects.equals(left, node.left) && Objects.equals(right, node.right);
+        return (node.left == null) == (left == null) && (node.right == null) == (right == null);
+    }
+
+    @Override
+    int computeHash() {
+        int hash = CONNECTIVE_TAG * 31 + (type == null ? 0 : type.ordinal() + 1);
+        return (hash * 31 + hashOf(left)) * 31 + hashOf(right);
+    }
+
+    @Override
+    Fingerprint computeFingerprint() {
+        return Fingerprint.of(CONNECTIVE_TAG, value == null ? null : value.getFull(),
+                fingerprintOf(left), fingerprintOf(right));
     }
 
     private Node _handleCNF_AND() {
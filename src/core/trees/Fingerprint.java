@@ -0,0 +1,82 @@
+package core.trees;
+
+/**
+ * 128 bit structural fingerprint of a tree, see Node.getFingerprint
+ *
+ * Unlike hashCode, it only depends on the formula, never on the jvm or the process,
+ * so it can be used as a cache key across processes. It is not a cryptographic hash.
+ */
+public final class Fingerprint {
+
+    private final static long seed_high = 0x6A09E667F3BCC908L;
+    private final static long seed_low = 0xBB67AE8584CAA73BL;
+    private final static long golden = 0x9E3779B97F4A7C15L;
+
+    private final long high;
+    private final long low;
+
+    public Fingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    // stafford mix 13 of splitmix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param tag kind of the node
+     * @param text symbol of the node, e.g. the full literal, null if none
+     * @param children fingerprints of the children in order, null for a missing child
+     */
+    static Fingerprint of(int tag, String text, Fingerprint... children) {
+        long high = mix(seed_high ^ tag);
+        long low = mix(seed_low + tag * golden);
+        if (text != null) {
+            high = mix(high ^ text.length());
+            low = mix(low + text.length() * golden);
+            for (int i = 0; i < text.length(); i++) {
+                high = mix(high ^ text.charAt(i));
+                low = mix(low + text.charAt(i) * golden);
+            }
+        }
+        for (Fingerprint child : children) {
+            long child_high = child == null ? golden : child.high;
+            long child_low = child == null ? golden : child.low;
+            high = mix(high ^ child_high);
+            low = mix(low + Long.rotateLeft(child_low, 17) + child_high);
+        }
+        return new Fingerprint(high, low);
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Fingerprint)) return false;
+        Fingerprint fingerprint = (Fingerprint) other;
+        return high == fingerprint.high && low == fingerprint.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (high ^ high >>> 32);
+    }
+
+    /**
+     * @return 32 hex digits, high bits first
+     */
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
@@ -1,20 +1,58 @@
 package core.trees;
 
+import core.evaluation.Assignment;
+import core.evaluation.BitColumns;
+import core.evaluation.PackedLiteral;
+import core.evaluation.ProgramBuilder;
+import core.evaluation.VariableTable;
 import core.exceptions.InvalidInsertionException;
 import core.exceptions.InvalidNodeException;
 import core.symbols.Literal;
 import core.symbols.Symbol;
 
+import java.util.Deque;
 import java.util.List;
 import java.util.Set;
 
 public class LitNode extends BinaryNode {
 
     private Literal literal;  // avoid casting
+    private int code;  // packed relative to the variable table of its formula, see PackedLiteral, -1 if unknown
 
     public LitNode(Literal lit) {
+        this(lit, -1);
+    }
+
+    /**
+     * @param index index of the raw literal in the variable table of the formula, see Parser.getVariableTable
+     */
+    public LitNode(Literal lit, int index) {
         super(lit);
         literal = lit;
+        if (lit.isTautology()) code = PackedLiteral.TRUE;
+        else if (lit.isContradiction()) code = PackedLiteral.FALSE;
+        else code = index < 0 ? -1 : PackedLiteral.of(index, lit.isNegated());
+    }
+
+    /**
+     * @return index of the raw literal in the variable table of its formula, -1 if unknown or T/F
+     */
+    public int getIndex() {
+        return code < 0 ? -1 : PackedLiteral.getVariable(code);
+    }
+
+    /**
+     * @return the literal packed relative to the variable table of its formula, -1 if unknown
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @return the literal packed relative to the given table, its raw literal is added if not in the table
+     */
+    public int getCode(VariableTable variables) {
+        return variables.encode(literal);
     }
 
     @Override
@@ -31,6 +69,7 @@ public class LitNode extends BinaryNode {
     public Node insert(ConnNode node) {
         if (node == null) throw new InvalidNodeException("Connective node given is null");
         node.left = this;
+        node.invalidateHash();
         return node;
     }
 
@@ -93,7 +132,9 @@ public class LitNode extends BinaryNode {
 
     @Override
     public Node copy() {
-        return new LitNode(literal);
+        LitNode copy = new LitNode(literal);
+        copy.code = code;
+        return copy;
     }
 
     @Override
@@ -102,13 +143,48 @@ public class LitNode extends BinaryNode {
     }
 
     @Override
-    public boolean equals(Object other) {
+    boolean _shallowEquals(Node other) {
         if (!(other instanceof LitNode)) return false;
         else return ((LitNode) other).literal.equals(literal);
     }
 
+    @Override
+    int computeHash() {
+        return (LITERAL_TAG * 31 + literal.getRaw().hashCode()) * 2 + (literal.isNegated() ? 1 : 0);
+    }
+
+    @Override
+    Fingerprint computeFingerprint() {
+        return Fingerprint.of(LITERAL_TAG, literal.getFull());
+    }
+
     @Override
     public boolean isTrue() {
         return literal.getTruthValue();
     }
+
+    @Override
+    public boolean isTrue(Assignment assignment) {
+        return assignment.getTruthValue(literal, getIndex());
+    }
+
+    @Override
+    void _pushChildren(Deque<Node> stack) {
+        // no child
+    }
+
+    @Override
+    void _pushOperands(Deque<Node> stack) {
+        // no operand
+    }
+
+    @Override
+    void _emit(ProgramBuilder builder) {
+        builder.emitLiteral(literal);
+    }
+
+    @Override
+    void _evaluateBits(BitColumns columns, long[] result) {
+        columns.fill(literal, result);
+    }
 }
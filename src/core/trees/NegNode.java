@@ -1,12 +1,15 @@
 package core.trees;
 
+import core.evaluation.Assignment;
+import core.evaluation.BitColumns;
+import core.evaluation.ProgramBuilder;
 import core.exceptions.InvalidInsertionException;
 import core.symbols.Literal;
 import core.symbols.Negation;
 import core.symbols.Symbol;
 
+import java.util.Deque;
 import java.util.List;
-import java.util.Objects;
 import java.util.Set;
 
 public class NegNode extends SingletonNode {
@@ -37,6 +40,7 @@ public class NegNode extends SingletonNode {
 
     @Override
     public Node insert(LitNode node) {
+        invalidateHash();
         if (descendant == null) descendant = node;
         else descendant = descendant.insert(node);
         return this;
@@ -44,6 +48,7 @@ public class NegNode extends SingletonNode {
 
     @Override
     public Node insert(BracketNode node) {
+        invalidateHash();
         if (descendant == null) descendant = node;
         else descendant = descendant.insert(node);
         return this;
@@ -51,13 +56,16 @@ public class NegNode extends SingletonNode {
 
     @Override
     public Node insert(ConnNode node) {
+        invalidateHash();
         if (descendant == null) throw new InvalidInsertionException("Inserting Connective immediately after Negation");
         node.left = this;
+        node.invalidateHash();
         return node;
     }
 
     @Override
     public Node insert(NegNode node) {
+        invalidateHash();
         if (descendant == null) descendant = node;
         else descendant = descendant.insert(node);
         return this;
@@ -83,6 +91,7 @@ public class NegNode extends SingletonNode {
 
     @Override
     public void _eliminateArrows() {
+        invalidateHash();
         descendant._eliminateArrows();
     }
 
@@ -127,17 +136,54 @@ public class NegNode extends SingletonNode {
     }
 
     @Override
-    public boolean equals(Object other) {
+    boolean _shallowEquals(Node other) {
         if (other instanceof NegNode) {
             NegNode node = (NegNode) other;
-            return Objects.equals(node.descendant, descendant);
+            return node.hashCode() == hashCode() && (node.descendant == null) == (descendant == null);
         }
         else return false;
     }
 
+    @Override
+    int computeHash() {
+        return NEGATION_TAG * 31 + hashOf(descendant);
+    }
+
+    @Override
+    Fingerprint computeFingerprint() {
+        return Fingerprint.of(NEGATION_TAG, null, fingerprintOf(descendant));
+    }
+
     @Override
     public boolean isTrue() {
         return !descendant.isTrue();
     }
 
+    @Override
+    public boolean isTrue(Assignment assignment) {
+        return !descendant.isTrue(assignment);
+    }
+
+    @Override
+    void _pushChildren(Deque<Node> stack) {
+        if (descendant != null) stack.push(descendant);
+    }
+
+    @Override
+    void _pushOperands(Deque<Node> stack) {
+        stack.push(descendant);
+    }
+
+    @Override
+    void _emit(ProgramBuilder builder) {
+        builder.emitNegation();
+    }
+
+    @Override
+    void _evaluateBits(BitColumns columns, long[] result) {
+        descendant._evaluateBits(columns, result);
+        int words = columns.getWords();
+        for (int i = 0; i < words; i++) result[i] = ~result[i];
+    }
+
 }
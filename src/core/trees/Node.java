@@ -1,20 +1,38 @@
 package core.trees;
 
 import core.common.Pair;
+import core.evaluation.Assignment;
+import core.evaluation.BitColumns;
+import core.evaluation.PackedLiteral;
+import core.evaluation.Program;
+import core.evaluation.ProgramBuilder;
+import core.evaluation.VariableTable;
 import core.symbols.Literal;
 import core.symbols.Symbol;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import static core.symbols.Connective.Type.AND;
+import static core.symbols.Connective.Type.OR;
 
 
 public abstract class Node implements NodeInsertion, TruthValue {
     Symbol value;
 
+    // tags of the node kinds for hashCode and getFingerprint
+    final static int LITERAL_TAG = 1, NEGATION_TAG = 2, BRACKET_TAG = 3, CONNECTIVE_TAG = 4;
+
+    // computed on first use, reset by the in place mutators: insert, eliminateArrows
+    // other transformations work on a fresh copy
+    private int hashcode;  // 0 if not computed
+    private Fingerprint fingerprint;  // null if not computed
+
     Node() {
         this(null);
     }
@@ -51,6 +69,76 @@ public abstract class Node implements NodeInsertion, TruthValue {
         return this;
     }
 
+    /**
+     * Evaluate this node without reading the truth values stored in the literals
+     * Any number of threads can evaluate the same tree at the same time with their own assignments
+     *
+     * @param assignment truth values of the literals of this node
+     * @return truth value of this node under the given assignment
+     */
+    public abstract boolean isTrue(Assignment assignment);
+
+    /**
+     * Evaluate this node for 64 assignments per word, see {@link BitColumns}
+     * @param columns truth values of the literals in the current block
+     * @return truth values of this node in the current block, one bit per assignment
+     */
+    public long[] evaluateBits(BitColumns columns) {
+        long[] result = new long[columns.getWords()];
+        _evaluateBits(columns, result);
+        return result;
+    }
+
+    /**
+     * Same as evaluateBits(columns) but write into the given array of columns.getWords() words
+     */
+    public void evaluateBits(BitColumns columns, long[] result) {
+        _evaluateBits(columns, result);
+    }
+
+    // internal method which write the bit sliced truth values of this node into result
+    abstract void _evaluateBits(BitColumns columns, long[] result);
+
+    /**
+     * @return a flat postfix program of this node, literals get slots in order of first appearance
+     */
+    public Program compile() {
+        ProgramBuilder builder = new ProgramBuilder();
+        __compile(builder);
+        return builder.build();
+    }
+
+    /**
+     * @param literals slot i of the program is given to literals[i]
+     * @return a flat postfix program of this node
+     */
+    public Program compile(Literal[] literals) {
+        ProgramBuilder builder = new ProgramBuilder(literals);
+        __compile(builder);
+        return builder.build();
+    }
+
+    // emit the nodes in postfix order without recursion, so trees of any depth can be compiled
+    private void __compile(ProgramBuilder builder) {
+        Deque<Node> pending = new ArrayDeque<>();
+        Deque<Node> postfix = new ArrayDeque<>();  // reversed postfix order
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            postfix.push(node);
+            node._pushOperands(pending);  // the last pushed operand is expanded first, so it is emitted last
+        }
+        while (!postfix.isEmpty()) {
+            postfix.pop()._emit(builder);
+        }
+    }
+
+    // internal method which push the operands of this node from left to right, see compile
+    abstract void _pushOperands(Deque<Node> stack);
+
+    // internal method which emit the instruction of this node after those of its operands
+    abstract void _emit(ProgramBuilder builder);
+
     public abstract boolean isTautology();
 
     public abstract boolean isContradiction();
@@ -113,6 +201,85 @@ public abstract class Node implements NodeInsertion, TruthValue {
         return new Pair<>(cnf_node, clauses);
     }
 
+    /**
+     * The CNF of this tree as clauses of packed literals, see PackedLiteral
+     * T and F are folded: a clause with T or with both P and ~P is dropped and F is removed from its clause,
+     * so an empty array is a tautology and an empty clause is a contradiction
+     *
+     * @param variables raw literals not in the table are added to it
+     * @return clauses[i] is the disjunction of its codes
+     */
+    public int[][] toPackedCNF(VariableTable variables) {
+        Node node = this.copy();
+        node._eliminateArrows();
+        node = node._pushNegations();
+        return __packed_CNF(node, variables).toArray(new int[0][]);
+    }
+
+    // internal method requires arrows eliminated and negations pushed into the literals
+    private static List<int[]> __packed_CNF(Node node, VariableTable variables) {
+        node = __unbracket(node);
+        List<int[]> clauses = new ArrayList<>();
+        if (!(node instanceof ConnNode)) {
+            int code = __packed_CNF_literal(node, variables);
+            if (code == PackedLiteral.FALSE) clauses.add(new int[0]);
+            else if (code != PackedLiteral.TRUE) clauses.add(new int[]{code});
+            return clauses;
+        }
+        ConnNode conn_node = (ConnNode) node;
+        List<int[]> left_clauses = __packed_CNF(conn_node.left, variables);
+        List<int[]> right_clauses = __packed_CNF(conn_node.right, variables);
+        if (conn_node.type == AND) {
+            left_clauses.addAll(right_clauses);
+            return left_clauses;
+        }
+        if (conn_node.type != OR) {
+            throw new IllegalStateException("Unrecognised connective type even after eliminating arrow");
+        }
+        // distribute: (a /\ b) \/ (c /\ d) === (a \/ c) /\ (a \/ d) /\ (b \/ c) /\ (b \/ d)
+        for (int[] left_clause : left_clauses) {
+            for (int[] right_clause : right_clauses) {
+                int[] clause = __merge_clauses(left_clause, right_clause);
+                if (clause != null) clauses.add(clause);
+            }
+        }
+        return clauses;
+    }
+
+    // disjunction of two clauses without duplicates, null if it contains both P and ~P
+    private static int[] __merge_clauses(int[] left, int[] right) {
+        int[] clause = Arrays.copyOf(left, left.length + right.length);
+        int size = left.length;
+        for (int code : right) {
+            boolean duplicate = false;
+            for (int i = 0; i < size; i++) {
+                if (clause[i] == PackedLiteral.negate(code)) return null;
+                if (clause[i] == code) duplicate = true;
+            }
+            if (!duplicate) clause[size++] = code;
+        }
+        return size == clause.length ? clause : Arrays.copyOf(clause, size);
+    }
+
+    private static Node __unbracket(Node node) {
+        while (node instanceof BracketNode) node = ((BracketNode) node).head;
+        return node;
+    }
+
+    // literal or negated literal of a cnf clause
+    private static int __packed_CNF_literal(Node node, VariableTable variables) {
+        if (node instanceof LitNode) {
+            return ((LitNode) node).getCode(variables);
+        }
+        if (node instanceof NegNode) {
+            Node descendant = __unbracket(((NegNode) node).descendant);
+            if (descendant instanceof LitNode) {
+                return PackedLiteral.negate(((LitNode) descendant).getCode(variables));
+            }
+        }
+        throw new IllegalStateException("Not a literal in CNF clause: " + node);
+    }
+
     // Internal method requires input node MUST be in cnf form
     private static Node __simplify_CNF_node(Node cnf_node) {
         // remove external brackets
@@ -179,7 +346,93 @@ public abstract class Node implements NodeInsertion, TruthValue {
 
     abstract StringBuilder toStringBuilder();
 
+    /**
+     * @return true if other has the same structure, compared without recursion
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Node)) return false;
+        Deque<Node> left = new ArrayDeque<>();
+        Deque<Node> right = new ArrayDeque<>();  // children of equal nodes are pushed in the same order
+        left.push(this);
+        right.push((Node) other);
+        while (!left.isEmpty()) {
+            Node node = left.pop(), other_node = right.pop();
+            if (node == other_node) continue;
+            if (!node._shallowEquals(other_node)) return false;
+            node._pushChildren(left);
+            other_node._pushChildren(right);
+        }
+        return true;
+    }
+
+    // internal method which compares this node without its children, including which of them are null
+    abstract boolean _shallowEquals(Node other);
+
+    /**
+     * @return structural hash consistent with equals, computed once and cached
+     */
     @Override
-    public abstract boolean equals(Object other);  // structure-ly equals
+    public int hashCode() {
+        if (hashcode == 0) {
+            // children before parents, so computeHash only reads cached hashes
+            for (Node node : uncached(true)) {
+                int hash = node.computeHash();
+                node.hashcode = hash == 0 ? 1 : hash;  // 0 means not computed
+            }
+        }
+        return hashcode;
+    }
+
+    // internal method which computes the structural hash from the cached hashes of the children
+    abstract int computeHash();
+
+    static int hashOf(Node node) {
+        return node == null ? 0 : node.hashCode();
+    }
+
+    /**
+     * Equal trees have the same fingerprint, truth values assigned to literals are not part of it
+     *
+     * @return 128 bit structural fingerprint, computed once and cached
+     */
+    public Fingerprint getFingerprint() {
+        if (fingerprint == null) {
+            for (Node node : uncached(false)) {
+                node.fingerprint = node.computeFingerprint();
+            }
+        }
+        return fingerprint;
+    }
+
+    // internal method which computes the fingerprint from the cached fingerprints of the children
+    abstract Fingerprint computeFingerprint();
+
+    static Fingerprint fingerprintOf(Node node) {
+        return node == null ? null : node.getFingerprint();
+    }
+
+    // nodes of this subtree without a cached hash or fingerprint in postfix order, found without recursion
+    private Deque<Node> uncached(boolean hash) {
+        Deque<Node> pending = new ArrayDeque<>();
+        Deque<Node> postfix = new ArrayDeque<>();  // reversed postfix order
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            if (hash ? node.hashcode != 0 : node.fingerprint != null) continue;  // so is its subtree
+            postfix.push(node);
+            node._pushChildren(pending);
+        }
+        return postfix;
+    }
+
+    // internal method which push the children of this node that are not null, the node may be incomplete
+    abstract void _pushChildren(Deque<Node> stack);
+
+    // must be called by a node before its own structure changes in place
+    void invalidateHash() {
+        hashcode = 0;
+        fingerprint = null;
+    }
 
 }
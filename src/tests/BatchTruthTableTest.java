@@ -0,0 +1,74 @@
+package tests;
+
+import core.BatchTruthTable;
+import core.Parser;
+import core.evaluation.Program;
+import core.trees.Node;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchTruthTableTest {
+
+    private Node parse(String formula) {
+        return new Parser().evaluate(formula).getTree();
+    }
+
+    @Test
+    void sameAsSingleFormulaTest() {
+        String[] formulas = {
+                "a /\\ b -> c",
+                "(a /\\ b -> c) \\/ ~d",
+                "d <-> ~(b /\\ a)",
+                "e \\/ T",
+                "F",
+                "a /\\ ~a"
+        };
+        Node[] trees = new Node[formulas.length];
+        for (int i = 0; i < formulas.length; i++) {
+            trees[i] = parse(formulas[i]);
+        }
+        BatchTruthTable table = new BatchTruthTable(trees);
+        String[] names = table.getVariableNames();
+        assertArrayEquals(names, new String[]{"a", "b", "c", "d", "e"});
+        long[][] bits = table.generateBits();
+        long[] counts = table.countModels();
+        assertEquals(bits.length, formulas.length);
+        for (int f = 0; f < formulas.length; f++) {
+            Program program = trees[f].compile();
+            long count = 0;
+            for (int row = 0; row < 1 << names.length; row++) {
+                boolean[] values = new boolean[program.getSlotCount()];
+                for (int i = 0; i < names.length; i++) {
+                    int slot = program.getSlot(names[i]);
+                    if (slot >= 0) values[slot] = (row >>> names.length - 1 - i & 1) == 0;
+                }
+                boolean expected = program.evaluate(values);
+                if (expected) count++;
+                assertEquals((bits[f][row >>> 6] >>> row & 1) == 1, expected, formulas[f]);
+            }
+            assertEquals(counts[f], count, formulas[f]);
+        }
+    }
+
+    @Test
+    void sharedSubformulaTest() {
+        BatchTruthTable table = new BatchTruthTable(parse("a /\\ b"), parse("b /\\ a"), parse("~~(a /\\ b) -> c"));
+        assertEquals(table.getFormulaCount(), 3);
+        assertEquals(table.getNodeCount(), 5);  // a, b, a /\ b, c and the implication
+        assertArrayEquals(table.countModels(), new long[]{2, 2, 7});
+    }
+
+    @Test
+    void multipleBlocksTest() {
+        Node first = parse("a /\\ b -> c \\/ d <-> e /\\ ~f -> g \\/ h <-> i /\\ l -> m \\/ ~n <-> o");
+        Node second = parse("~(a /\\ b -> c \\/ d <-> e /\\ ~f -> g \\/ h <-> i /\\ l -> m \\/ ~n <-> o)");
+        BatchTruthTable table = new BatchTruthTable(first, second);
+        long[] counts = table.countModels();
+        assertEquals(counts[0] + counts[1], 1L << 13);
+        long[][] bits = table.generateBits();
+        for (int w = 0; w < bits[0].length; w++) {
+            assertEquals(bits[0][w], ~bits[1][w]);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package tests;
+
+import core.CorpusParser;
+import core.Parser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorpusParserTest {
+
+    @Test
+    void parseTest() throws IOException {
+        StringBuilder corpus = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            if (i % 100 == 7) corpus.append("cat /\\ -> dog");  // invalid
+            else if (i % 100 == 8) corpus.append("");  // empty line
+            else if (i % 100 == 9) corpus.append("(cat <-> dog) \\/ ~horse\r");
+            else corpus.append("cat").append(i % 26 == 0 ? "" : " -> cow /\\ ~dog");
+            corpus.append('\n');
+        }
+        Path path = Files.createTempFile("corpus", ".txt");
+        try {
+            Files.write(path, corpus.toString().getBytes(StandardCharsets.UTF_8));
+            // small chunks so that many lines cross chunk boundaries
+            CorpusParser.Result result = new CorpusParser(Parser.Mode.INSERTION, 4, 1000).parse(path);
+            assertEquals(result.getLineCount(), 5000);
+            assertEquals(result.getByteCount(), Files.size(path));
+            assertEquals(result.getErrorCount(), 50);
+            assertTrue(result.getLinesPerSecond() > 0);
+
+            List<CorpusParser.Entry> entries = result.getEntries();
+            assertEquals(entries.size(), 4950);
+            Parser parser = new Parser();
+            for (CorpusParser.Entry entry : entries) {
+                long i = entry.getLine() - 1;
+                assertNotEquals(i % 100, 8);
+                if (i % 100 == 7) {
+                    assertFalse(entry.isValid());
+                    assertEquals(entry.getColumn(), 8);  // the implication after the conjunction
+                    assertTrue(entry.getError().startsWith("Connective not allowed here"), entry.getError());
+                } else if (i % 100 == 9) {
+                    assertEquals(entry.getTree(), parser.evaluate("(cat <-> dog) \\/ ~horse").getTree());
+                } else {
+                    assertEquals(entry.getTree().toString(), i % 26 == 0 ? "cat" : "cat -> cow /\\ ~dog");
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void longLinesTest() throws IOException {
+        // lines up to 50 times longer than a chunk, so they span several chunks and must be mapped on their own
+        StringBuilder corpus = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            corpus.append('a');
+            for (int j = 0; j < i % 50; j++) {
+                corpus.append(" /\\ ").append(String.valueOf((char) ('b' + j % 24)).repeat(j / 24 + 1));
+            }
+            corpus.append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        Path path = Files.createTempFile("corpus", ".txt");
+        try {
+            Files.write(path, corpus.toString().getBytes(StandardCharsets.UTF_8));
+            CorpusParser.Result result = new CorpusParser(Parser.Mode.INSERTION, 4, 7).parse(path);
+            assertEquals(result.getLineCount(), 200);
+            assertEquals(result.getErrorCount(), 0);
+            List<CorpusParser.Entry> entries = result.getEntries();
+            assertEquals(entries.size(), 200);
+            for (CorpusParser.Entry entry : entries) {
+                long i = entry.getLine() - 1;
+                assertEquals(entry.getTree().getLiterals().size(), i % 50 + 1);
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void noTrailingNewlineTest() throws IOException {
+        Path path = Files.createTempFile("corpus", ".txt");
+        try {
+            Files.writeString(path, "cat\n\ndog /\\ horse");
+            CorpusParser.Result result = new CorpusParser().parse(path);
+            assertEquals(result.getLineCount(), 3);
+            assertEquals(result.getEntries().get(1).getLine(), 3);
+            assertEquals(result.getEntries().get(1).getTree().toString(), "dog /\\ horse");
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
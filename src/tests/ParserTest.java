@@ -2,8 +2,17 @@ package tests;
 
 import core.Parser;
 import core.exceptions.InvalidFormulaException;
+import core.trees.Node;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ParserTest {
@@ -119,4 +128,181 @@ class ParserTest {
         assertThrows(InvalidFormulaException.class, () -> parser.evaluate("a ~ ~ (b -> b)"));
         assertThrows(InvalidFormulaException.class, () -> parser.evaluate("~~()"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void ParserVariableTable() {
+        Parser parser = new Parser().evaluate("(b -> a) /\\ ~b \\/ T <-> c");
+        assertArrayEquals(parser.getVariableTable().getNames(), new String[]{"b", "a", "c"});
+        assertEquals(parser.getVariableTable().indexOf("c"), 2);
+        assertEquals(parser.getVariableTable().indexOf("T"), -1);
+    }
+
+    @Test
+    void ParserPrecedenceClimbing() {
+        Parser insertion = new Parser();
+        Parser precedence = new Parser(Parser.Mode.PRECEDENCE_CLIMBING);
+        Random random = new Random(16);
+        for (int n = 0; n < 5000; n++) {
+            String formula = randomFormula(random, 4);
+            Node expected = insertion.evaluate(formula).getTree();
+            Node actual = precedence.evaluate(formula).getTree();
+            assertEquals(actual, expected, formula);
+            assertEquals(actual.toString(), expected.toString(), formula);
+            assertEquals(actual.toBracketString(), expected.toBracketString(), formula);
+            assertArrayEquals(precedence.getVariableTable().getNames(), insertion.getVariableTable().getNames());
+        }
+
+        // same error messages and offsets
+        for (String formula : new String[]{"", "a b", "()", "(a", "a)", "a -(> b", "~~()", "a ~ ~ (b -> b)",
+                "-> a", "->~a", "-> ~~~b"}) {
+            assertSameErrors(insertion, precedence, formula);
+        }
+        char[] alphabet = "ab ~()/\\-<>".toCharArray();
+        for (int n = 0; n < 20000; n++) {
+            char[] chars = new char[random.nextInt(12)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            assertSameErrors(insertion, precedence, new String(chars));
+        }
+
+        // long chains of mixed precedence neither recurse nor take quadratic time
+        StringBuilder chain = new StringBuilder("a");
+        for (int i = 0; i < 100000; i++) {
+            chain.append(i % 2 == 0 ? " /\\ b" : " -> a");
+        }
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> precedence.evaluate(chain.toString()));
+        assertEquals(precedence.getLiterals().length, 2);
+    }
+
+    // a valid formula with random spaces, brackets, negations and constants
+    private static String randomFormula(Random random, int depth) {
+        String formula;
+        if (depth == 0 || random.nextInt(4) == 0) {
+            String[] literals = {"a", "b", "cat", "T", "F"};
+            formula = literals[random.nextInt(literals.length)];
+        } else {
+            String[] connectives = {"/\\", "\\/", "->", "<->"};
+            String space = random.nextBoolean() ? " " : "";
+            formula = randomFormula(random, depth - 1) + space + connectives[random.nextInt(connectives.length)]
+                    + space + randomFormula(random, depth - 1);
+        }
+        if (random.nextInt(4) == 0) formula = "(" + formula + ")";
+        if (random.nextInt(4) == 0) formula = "~" + (random.nextBoolean() ? " " : "") + formula;
+        return formula;
+    }
+
+    // both parsers accept the formula with equal trees or reject it with the same message and offset
+    private static void assertSameErrors(Parser insertion, Parser precedence, String formula) {
+        InvalidFormulaException expected = null, actual = null;
+        Node expected_tree = null, actual_tree = null;
+        try {
+            expected_tree = insertion.evaluate(formula).getTree();
+        } catch (InvalidFormulaException e) {
+            expected = e;
+        }
+        try {
+            actual_tree = precedence.evaluate(formula).getTree();
+        } catch (InvalidFormulaException e) {
+            actual = e;
+        }
+        if (expected == null) {
+            assertNull(actual, formula);
+            assertEquals(actual_tree, expected_tree, formula);
+        } else {
+            assertNotNull(actual, formula);
+            assertEquals(actual.getMessage(), expected.getMessage(), formula);
+            assertEquals(actual.getOffset(), expected.getOffset(), formula);
+        }
+    }
+
+    @Test
+    void ParserReuse() {
+        Parser parser = new Parser();
+        Node long_tree = parser.evaluate("(cat /\\ dog) -> ~(horse \\/ cow) <-> T").getTree();
+        Node short_tree = parser.evaluate("cat").getTree();  // buffer is longer than the input now
+        assertEquals(short_tree.toString(), "cat");
+        assertEquals(parser.getLiterals().length, 1);
+        assertEquals(parser.evaluate("(cat /\\ dog) -> ~(horse \\/ cow) <-> T").getTree(), long_tree);
+        assertEquals(parser.getLiterals().length, 5);
+        assertThrows(InvalidFormulaException.class, () -> parser.evaluate("cat)"));
+        assertEquals(parser.evaluate("~dog").getTree().toString(), "~dog");
+    }
+
+    @Test
+    void ParserStreaming() {
+        Parser parser = new Parser();
+        Parser streaming = new Parser(Parser.Mode.PRECEDENCE_CLIMBING);
+        StringBuilder formula = new StringBuilder("(cat /\\ ~dog)");
+        for (int i = 0; i < 2000; i++) {  // longer than the stream buffer
+            formula.append(i % 3 == 0 ? " -> " : i % 3 == 1 ? " <-> " : " \\/ ").append(i % 2 == 0 ? "~cow" : "(T)");
+        }
+        formula.append(" /\\ ").append("horse".repeat(3000));  // literal longer than the stream buffer
+        String string = formula.toString();
+
+        Node expected = parser.evaluate(string).getTree();
+        assertEquals(streaming.evaluate(new StringReader(string)).getTree(), expected);
+        assertEquals(streaming.getLiterals().length, 5);
+        assertEquals(streaming.toString(), expected.toString());
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(new Parser().evaluate(channel).getTree(), expected);
+
+        // same messages as evaluate(String) for short formulas
+        for (String invalid : new String[]{"", "a b", "(a", "a)", "a -(> b", "a <- b", "a /", "~~()"}) {
+            String message = assertThrows(InvalidFormulaException.class, () -> parser.evaluate(invalid)).getMessage();
+            assertEquals(assertThrows(InvalidFormulaException.class,
+                    () -> streaming.evaluate(new StringReader(invalid))).getMessage(), message);
+        }
+
+        // only the text around the error is shown
+        String message = assertThrows(InvalidFormulaException.class,
+                () -> parser.evaluate(new StringReader(string + " cow"))).getMessage();
+        assertTrue(message.startsWith("Literal not allowed here"), message);
+        assertTrue(message.length() < 200, message);
+        assertTrue(message.contains("horse cow"), message);
+    }
+
+    // validate must agree with evaluate on the error code, message and offset
+    private void assertSameAsEvaluate(Parser parser, String formula) {
+        long result = Parser.validate(formula);
+        try {
+            parser.evaluate(formula);
+            assertEquals(result, Parser.VALID, formula);
+        } catch (InvalidFormulaException e) {
+            assertNotEquals(result, Parser.VALID, formula);
+            assertTrue(e.getMessage().startsWith(Parser.getErrorMessage(Parser.getErrorCode(result))), formula);
+            assertEquals(Parser.getErrorOffset(result), e.getOffset(), formula);
+        }
+    }
+
+    @Test
+    void ParserValidate() {
+        Parser parser = new Parser();
+        String[] formulas = {
+                "a", "~a", "(((((a)))))", "a /\\ b \\/ c", "a <-> b -> c", "~~~(~~(~~(~~(a))) ) ",
+                "a/\\((b->(c<->d)))\\/((((e))))", "", "   ", "a b", "->", "~", "()", "(", ")", "())", "(()",
+                "~a b", "a()", "a (/\\ b)", "(a /\\/ b)", "(a <--> b)", "a <- b", "a < b", "a > b", "a - b",
+                "a -(> b)", "a ~-> b", "~~()", "a \\ b", "a / b", "a & b", "a /\\ b)", "(a /\\ b",
+                "-> a", "->~a", "-> ~~~b", "<-> a"
+        };
+        for (String formula : formulas) {
+            assertSameAsEvaluate(parser, formula);
+        }
+        assertEquals(Parser.getErrorCode(Parser.validate("a /\\ (b")), Parser.ERROR_UNCLOSED_BRACKET);
+        assertEquals(Parser.getErrorOffset(Parser.validate("a /\\ (b")), 7);
+        assertEquals(Parser.getErrorCode(Parser.validate("a $ b")), Parser.ERROR_INVALID_CHARACTER);
+        assertEquals(assertThrows(InvalidFormulaException.class, () -> Parser.validate(null)).getMessage(),
+                assertThrows(InvalidFormulaException.class, () -> parser.evaluate((String) null)).getMessage());
+
+        // random strings over the formula alphabet
+        Random random = new Random(42);
+        char[] alphabet = "ab ~()/\\-<>".toCharArray();
+        for (int n = 0; n < 200000; n++) {
+            char[] chars = new char[random.nextInt(12)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            assertSameAsEvaluate(parser, new String(chars));
+        }
+    }
+}
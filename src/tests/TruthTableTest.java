@@ -1,8 +1,23 @@
 package tests;
 
+import core.MappedTruthTable;
+import core.Row;
 import core.TruthTable;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class TruthTableTest {
@@ -99,4 +114,162 @@ class TruthTableTest {
                         "|     false|     false|     false|           true|" + ls +
                         "|----------|----------|----------|---------------|" + ls);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGenerateBits() {
+        // rows: TT, TF, FT, FF -> bit 0 is the first row
+        truth_table.evaluate("a -> b");
+        assertArrayEquals(truth_table.generateBits(), new long[]{0b1101});
+
+        truth_table.evaluate("a <-> b");
+        assertArrayEquals(truth_table.generateBits(), new long[]{0b1001});
+
+        truth_table.evaluate("T /\\ ~F");
+        assertArrayEquals(truth_table.generateBits(), new long[]{1});
+
+        // every row of a 7 literals conjunction is false except the first one
+        truth_table.evaluate("a /\\ b /\\ c /\\ d /\\ e /\\ f /\\ g");
+        assertArrayEquals(truth_table.generateBits(), new long[]{1, 0});
+    }
+
+    @Test
+    void testGenerateParallel() {
+        truth_table.evaluate("(a /\\ (~b -> a) <-> c \\/ b -> ~a /\\ (c <-> a)) \\/ ~b /\\ T");
+        String table = truth_table.generate();
+        long true_rows = truth_table.getTrueRowCount();
+        assertEquals(truth_table.generateParallel(), table);
+        assertEquals(truth_table.getTrueRowCount(), true_rows);
+
+        // large enough to be split into several tasks
+        truth_table.evaluate("a /\\ b -> c \\/ d <-> e /\\ ~f -> g \\/ h <-> i /\\ l -> m \\/ ~n <-> o");
+        table = truth_table.generate();
+        true_rows = truth_table.getTrueRowCount();
+        assertEquals(truth_table.generateParallel(), table);
+        assertEquals(truth_table.getTrueRowCount(), true_rows);
+    }
+
+    @Test
+    void testGenerateStream() {
+        truth_table.evaluate("(a /\\ (~b -> a) <-> c \\/ b -> ~a /\\ (c <-> a)) \\/ ~b");
+        String table = truth_table.generate();
+
+        StringWriter writer = new StringWriter();
+        truth_table.generate(writer);
+        assertEquals(writer.toString(), table);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        truth_table.generate(Channels.newChannel(bytes));
+        assertEquals(bytes.toString(StandardCharsets.UTF_8), table);
+    }
+
+    @Test
+    void testGenerateGrayCode() {
+        truth_table.evaluate("a -> b");
+        assertEquals(truth_table.generateGrayCode(),
+                "|----------|----------|---------------|" + ls +
+                        "|         a|         b|    Truth Value|" + ls +
+                        "|----------|----------|---------------|" + ls +
+                        "|      true|      true|           true|" + ls +
+                        "|      true|     false|          false|" + ls +
+                        "|     false|     false|           true|" + ls +
+                        "|     false|      true|           true|" + ls +
+                        "|----------|----------|---------------|" + ls);
+
+        // same rows as generate, only the order differs
+        truth_table.evaluate("(a /\\ (~b -> a) <-> c \\/ b -> ~a /\\ (c <-> a)) \\/ ~b /\\ T");
+        String[] rows = truth_table.generate().split(ls);
+        long true_rows = truth_table.getTrueRowCount();
+        String[] gray_code_rows = truth_table.generateGrayCode().split(ls);
+        Arrays.sort(rows);
+        Arrays.sort(gray_code_rows);
+        assertArrayEquals(gray_code_rows, rows);
+        assertEquals(truth_table.getTrueRowCount(), true_rows);
+    }
+
+    @Test
+    void testModels() {
+        truth_table.evaluate("a -> b");
+        BitSet models = new BitSet();
+        models.set(0);
+        models.set(2);
+        models.set(3);
+        assertEquals(truth_table.getModels(), models);
+        assertEquals(truth_table.countModels(), 3);
+
+        truth_table.evaluate("a /\\ ~a");
+        assertTrue(truth_table.getModels().isEmpty());
+        assertEquals(truth_table.countModels(), 0);
+
+        truth_table.evaluate("T");
+        assertEquals(truth_table.countModels(), 1);
+
+        // more than one bit sliced block
+        truth_table.evaluate("a /\\ b -> c \\/ d <-> e /\\ ~f -> g \\/ h <-> i /\\ l -> m \\/ ~n <-> o \\/ ~q /\\ u -> v /\\ T");
+        truth_table.generate();
+        assertEquals(truth_table.countModels(), truth_table.getTrueRowCount());
+        assertEquals(truth_table.getModels().cardinality(), truth_table.getTrueRowCount());
+    }
+
+    @Test
+    void testStore() throws IOException {
+        Path path = Files.createTempFile("truth_table", ".bin");
+        try {
+            truth_table.evaluate("a -> b");
+            try (MappedTruthTable table = truth_table.store(path, true)) {
+                assertArrayEquals(table.getVariableNames(), new String[]{"a", "b"});
+                assertEquals(table.getRowCount(), 4);
+                assertEquals(table.countModels(), 3);
+                assertTrue(table.hasRows());
+                assertTrue(table.get(0) && !table.get(1) && table.get(2) && table.get(3));
+                assertEquals(table.getAssignment(1), 0b01);  // a true, b false
+                assertThrows(IndexOutOfBoundsException.class, () -> table.get(4));
+            }
+
+            // more than one bit sliced block, reopened without rows
+            truth_table.evaluate("a /\\ b -> c \\/ d <-> e /\\ ~f -> g \\/ h <-> i /\\ l -> m \\/ ~n <-> o \\/ ~q /\\ u -> v");
+            truth_table.store(path, false).close();
+            BitSet models = truth_table.getModels();
+            try (MappedTruthTable table = MappedTruthTable.open(path)) {
+                assertFalse(table.hasRows());
+                assertEquals(table.countModels(), truth_table.countModels());
+                for (long row = 0; row < table.getRowCount(); row += 97) {
+                    assertEquals(table.get(row), models.get((int) row));
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testRows() {
+        truth_table.evaluate("a -> b");
+        assertArrayEquals(truth_table.getVariableNames(), new String[]{"a", "b"});
+        Iterator<Row> rows = truth_table.rowIterator();
+        Row row = rows.next();
+        assertEquals(row.getIndex(), 0);
+        assertTrue(row.getValue(0) && row.getValue(1) && row.isTrue());
+        row = rows.next();
+        assertTrue(row.getValue(0));
+        assertFalse(row.getValue(1) || row.isTrue());
+        row = rows.next();
+        assertTrue(!row.getValue(0) && row.getValue(1) && row.isTrue());
+        row = rows.next();
+        assertEquals(row.getAssignment(), 0);
+        assertEquals(row.getIndex(), 3);
+        assertFalse(rows.hasNext());
+
+        // lazy, stop at the first false row
+        truth_table.evaluate("a /\\ b -> c \\/ d <-> e /\\ ~f -> g \\/ h <-> i /\\ l -> m \\/ ~n <-> o");
+        assertEquals(truth_table.rows().filter(r -> !r.isTrue()).findFirst().get().getIndex(), 1);
+
+        // parallel stream gives the same rows in the same order
+        BitSet models = truth_table.getModels();
+        List<Long> sequential = truth_table.rows().filter(Row::isTrue).map(Row::getIndex).collect(Collectors.toList());
+        List<Long> parallel = truth_table.rows().parallel().filter(Row::isTrue).map(Row::getIndex)
+                .collect(Collectors.toList());
+        assertEquals(parallel, sequential);
+        assertEquals(sequential.size(), models.cardinality());
+        assertEquals(models.nextSetBit(0), sequential.get(0));
+    }
+}
@@ -0,0 +1,127 @@
+package tests.dag;
+
+import core.Parser;
+import core.dag.Formula;
+import core.dag.FormulaFactory;
+import core.evaluation.Assignment;
+import core.evaluation.Program;
+import core.evaluation.VariableTable;
+import core.symbols.Literal;
+import core.trees.Node;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormulaFactoryTest {
+
+    @Test
+    void sharing() {
+        FormulaFactory factory = new FormulaFactory();
+        Formula first = factory.of(new Parser().evaluate("(a /\\ b) \\/ ~~c").getTree());
+        Formula second = factory.of(new Parser().evaluate("c \\/ (b /\\ a)").getTree());
+        assertSame(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        Formula a = factory.variable("a");
+        Formula shared = factory.and(a, factory.variable("b"));
+        assertSame(shared.getLeft(), a);
+        Formula formula = factory.iff(factory.or(shared, a), factory.not(shared));
+        assertEquals(factory.countNodes(formula), 6);  // a, b, a /\ b, (a /\ b) \/ a, ~(a /\ b), iff
+
+        assertSame(factory.and(a, factory.constant(true)), a);
+        assertSame(factory.or(a, factory.not(a)), factory.constant(true));
+        assertSame(factory.iff(a, factory.constant(false)), factory.not(a));
+        assertSame(factory.not(factory.not(a)), a);
+
+        FormulaFactory other = new FormulaFactory();
+        assertNotEquals(other.variable("a"), a);
+        assertThrows(IllegalArgumentException.class, () -> factory.not(other.variable("a")));
+    }
+
+    @Test
+    void nestedBiconditionals() {
+        FormulaFactory factory = new FormulaFactory();
+        Formula formula = factory.variable("p");
+        for (int i = 0; i < 64; i++) {
+            formula = factory.iff(factory.variable("v" + (char) ('a' + i % 26) + (char) ('a' + i / 26)), formula);
+        }
+        // a tree would double the operands at every level, shared nodes grow linearly
+        Formula without_arrows = factory.eliminateArrows(formula);
+        assertTrue(factory.countNodes(without_arrows) < 64 * 8);
+        Formula negation_normal = factory.pushNegations(formula);
+        assertTrue(factory.countNodes(negation_normal) < 64 * 8);
+        assertSame(factory.eliminateArrows(formula), without_arrows);  // memoized
+
+        // xor chain: true iff an even number of variables are false, p included
+        Assignment assignment = new Assignment();
+        for (int i = 0; i < 64; i++) {
+            assignment.assign(Literal.newInstance("v" + (char) ('a' + i % 26) + (char) ('a' + i / 26)),
+                    i % 3 == 0);
+        }
+        assignment.assign(Literal.newInstance("p"), true);
+        int false_count = 0;
+        for (int i = 0; i < 64; i++) if (i % 3 != 0) false_count++;
+        boolean expected = false_count % 2 == 0;
+        assertEquals(factory.evaluate(formula, assignment), expected);
+        assertEquals(factory.evaluate(without_arrows, assignment), expected);
+        assertEquals(factory.evaluate(negation_normal, assignment), expected);
+    }
+
+    @Test
+    void sameTruthValuesAsTree() {
+        String[] formulas = {
+                "(a -> b) <-> ~(c /\\ a)",
+                "a \\/ b /\\ c \\/ ~(a -> ~d)",
+                "~(a <-> b) /\\ (c \\/ d) -> a",
+                "(a <-> (b <-> (c <-> d))) /\\ ~(T -> d)",
+                "a /\\ ~a \\/ (b -> F)",
+        };
+        FormulaFactory factory = new FormulaFactory();
+        for (String string : formulas) {
+            Parser parser = new Parser().evaluate(string);
+            Node tree = parser.getTree();
+            VariableTable variables = parser.getVariableTable();
+            Formula formula = factory.of(tree);
+            Formula negation_normal = factory.pushNegations(formula);
+            Formula reparsed = factory.of(new Parser().evaluate(formula.toString()).getTree());
+            assertSame(reparsed, formula, string);
+            for (int row = 0; row < 1 << variables.size(); row++) {
+                Assignment assignment = new Assignment(variables);
+                for (int i = 0; i < variables.size(); i++) assignment.assign(i, (row >>> i & 1) == 1);
+                boolean expected = tree.isTrue(assignment);
+                assertEquals(factory.evaluate(formula, assignment), expected, string);
+                assertEquals(factory.evaluate(factory.eliminateArrows(formula), assignment), expected, string);
+                assertEquals(factory.evaluate(negation_normal, assignment), expected, string);
+            }
+        }
+    }
+
+    @Test
+    void deepChain() {
+        // 20000 operands deep on the left, neither building, transforming, evaluating nor printing recurses
+        StringBuilder chain = new StringBuilder("a");
+        for (int i = 0; i < 20000; i++) {
+            chain.append(i % 2 == 0 ? " <-> b" : " /\\ ~c");
+        }
+        Parser parser = new Parser(Parser.Mode.PRECEDENCE_CLIMBING).evaluate(chain.toString());
+        Program program = parser.getTree().compile();
+        FormulaFactory factory = new FormulaFactory();
+        Formula formula = factory.of(parser.getTree());
+        Formula negation_normal = factory.pushNegations(formula);
+        assertTrue(factory.countNodes(formula) > 10000);
+        assertTrue(formula.toString().endsWith("))))"));  // nested as deep as the chain
+        for (int row = 0; row < 8; row++) {
+            Assignment assignment = new Assignment(parser.getVariableTable());
+            assignment.assign(0, (row & 1) == 1).assign(1, (row & 2) == 2).assign(2, (row & 4) == 4);
+            long bits = 0;  // bit i of the program assignment is slot i
+            String[] slots = program.getVariables();
+            for (int i = 0; i < slots.length; i++) {
+                if (assignment.getValue(parser.getVariableTable().indexOf(slots[i]))) bits |= 1L << i;
+            }
+            boolean expected = program.evaluate(bits);
+            assertEquals(factory.evaluate(formula, assignment), expected);
+            assertEquals(factory.evaluate(factory.eliminateArrows(formula), assignment), expected);
+            assertEquals(factory.evaluate(negation_normal, assignment), expected);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package tests.evaluation;
+
+import core.Parser;
+import core.evaluation.Assignment;
+import core.evaluation.VariableTable;
+import core.symbols.Literal;
+import core.trees.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssignmentTest {
+
+    @Test
+    void getTruthValue() {
+        Assignment assignment = new Assignment();
+        Literal literal = Literal.newInstance("apple");
+        assertFalse(assignment.isAssigned(literal));
+        assertThrows(IllegalStateException.class, () -> assignment.getTruthValue(literal));
+
+        assignment.assign(literal, true);
+        assertTrue(assignment.isAssigned(literal));
+        assertTrue(assignment.getTruthValue(literal));
+        assertFalse(assignment.getTruthValue(Literal.newInstance("~apple")));
+
+        assertTrue(assignment.getTruthValue(Literal.getTautology()));
+        assertFalse(assignment.getTruthValue(Literal.getContradiction()));
+        assertThrows(IllegalStateException.class, () -> assignment.assign(Literal.getTautology(), false));
+    }
+
+    @Test
+    void literalsAreNotModified() {
+        Literal literal = Literal.newInstance("banana");
+        literal.assign(false);
+        new Assignment().assign(literal, true);
+        assertFalse(literal.getTruthValue());
+    }
+
+    @Test
+    void concurrentEvaluation() {
+        Node tree = new Parser().evaluate("(a /\\ (~b -> a) <-> c \\/ b -> ~a /\\ (c <-> a)) \\/ ~b").getTree();
+        Literal a = Literal.newInstance("a"), b = Literal.newInstance("b"), c = Literal.newInstance("c");
+        // expected truth values for rows 0 to 7 where a is the most significant bit and 0 is true
+        boolean[] expected = {false, false, true, true, true, false, true, true};
+        IntStream.range(0, 80000).parallel().forEach(i -> {
+            int row = i % 8;
+            Assignment assignment = new Assignment()
+                    .assign(a, (row & 4) == 0)
+                    .assign(b, (row & 2) == 0)
+                    .assign(c, (row & 1) == 0);
+            assertEquals(expected[row], tree.isTrue(assignment));
+        });
+    }
+
+    @Test
+    void assignByIndex() {
+        Parser parser = new Parser().evaluate("rat /\\ ~cow \\/ rat -> T");
+        VariableTable variables = parser.getVariableTable();
+        assertArrayEquals(variables.getNames(), new String[]{"rat", "cow"});
+
+        Assignment assignment = new Assignment(variables).assign(0, true).assign(1, false);
+        assertTrue(assignment.getValue(0));
+        assertFalse(assignment.getValue(1));
+        assertTrue(assignment.getTruthValue(Literal.newInstance("~cow")));
+        assertTrue(parser.getTree().isTrue(assignment));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> assignment.assign(2, true));
+        assertThrows(IllegalArgumentException.class, () -> assignment.assign(Literal.newInstance("pig"), true));
+    }
+}
@@ -0,0 +1,48 @@
+package tests.evaluation;
+
+import core.Parser;
+import core.evaluation.CompiledFormula;
+import core.evaluation.Program;
+import core.trees.Node;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledFormulaTest {
+
+    private Parser parser = new Parser();
+
+    // compare the generated class against the interpreter for every assignment
+    private void assertSameAsProgram(String formula) {
+        CompiledFormula compiled = CompiledFormula.of(parser.evaluate(formula).getTree());
+        Program program = compiled.getProgram();
+        int slots = program.getSlotCount();
+        long[] columns = new long[slots];
+        for (long assignment = 0; assignment < 1L << slots; assignment++) {
+            assertEquals(program.evaluate(assignment), compiled.test(assignment), formula);
+            for (int i = 0; i < slots; i++) {
+                columns[i] = (assignment >>> i & 1) == 1 ? 0x5555555555555555L : 0xAAAAAAAAAAAAAAAAL;
+            }
+            assertEquals(program.evaluate(columns), compiled.test(columns), formula);
+        }
+    }
+
+    @Test
+    void test() {
+        assertSameAsProgram("a");
+        assertSameAsProgram("~a");
+        assertSameAsProgram("a -> b");
+        assertSameAsProgram("a <-> ~b");
+        assertSameAsProgram("a \\/ ~b /\\ T");
+        assertSameAsProgram("~(T -> F) \\/ c");
+        assertSameAsProgram("~~~(a -> b /\\ ~c \\/ ~b) <-> a -> c /\\ ~(c /\\ ((~a))) -> ~~~~((a)) /\\ (~(~~(~c)))");
+        assertSameAsProgram("(a /\\ (~b -> a) <-> c \\/ b -> ~a /\\ (c <-> a)) \\/ ~b");
+    }
+
+    @Test
+    void cachedPerTree() {
+        Node tree = parser.evaluate("a -> b").getTree();
+        assertSame(CompiledFormula.of(tree), CompiledFormula.of(tree));
+        assertNotSame(CompiledFormula.of(tree), CompiledFormula.of(tree.compile()));
+    }
+}
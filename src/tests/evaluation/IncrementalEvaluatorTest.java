@@ -0,0 +1,41 @@
+package tests.evaluation;
+
+import core.Parser;
+import core.evaluation.IncrementalEvaluator;
+import core.evaluation.Program;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalEvaluatorTest {
+
+    private Parser parser = new Parser();
+
+    // walk every assignment in Gray code order and compare with a full evaluation
+    private void assertSameAsProgram(String formula) {
+        Program program = parser.evaluate(formula).getTree().compile();
+        IncrementalEvaluator evaluator = new IncrementalEvaluator(program, 0);
+        assertEquals(program.evaluate(0), evaluator.getValue(), formula);
+        for (long i = 1; i < 1L << program.getSlotCount(); i++) {
+            boolean value = evaluator.flip(Long.numberOfTrailingZeros(i));
+            assertEquals(i ^ i >> 1, evaluator.getAssignment());
+            assertEquals(program.evaluate(evaluator.getAssignment()), value, formula);
+        }
+    }
+
+    @Test
+    void flip() {
+        assertSameAsProgram("a");
+        assertSameAsProgram("a /\\ a");
+        assertSameAsProgram("a -> b");
+        assertSameAsProgram("~(a <-> b) \\/ F");
+        assertSameAsProgram("~~~(a -> b /\\ ~c \\/ ~b) <-> a -> c /\\ ~(c /\\ ((~a))) -> ~~~~((a)) /\\ (~(~~(~c)))");
+        assertSameAsProgram("(a /\\ (~b -> a) <-> c \\/ b -> ~a /\\ (c <-> a)) \\/ ~b");
+    }
+
+    @Test
+    void constant() {
+        IncrementalEvaluator evaluator = new IncrementalEvaluator(parser.evaluate("T /\\ ~F").getTree().compile(), 0);
+        assertTrue(evaluator.getValue());
+    }
+}
@@ -0,0 +1,86 @@
+package tests.evaluation;
+
+import core.Parser;
+import core.evaluation.Assignment;
+import core.evaluation.PackedLiteral;
+import core.evaluation.VariableTable;
+import core.symbols.Literal;
+import core.trees.Node;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedLiteralTest {
+
+    @Test
+    void codes() {
+        assertEquals(PackedLiteral.negate(PackedLiteral.TRUE), PackedLiteral.FALSE);
+        assertTrue(PackedLiteral.isConstant(PackedLiteral.TRUE));
+        assertTrue(PackedLiteral.isConstant(PackedLiteral.FALSE));
+
+        int code = PackedLiteral.of(5, true);
+        assertEquals(PackedLiteral.getVariable(code), 5);
+        assertTrue(PackedLiteral.isNegated(code));
+        assertFalse(PackedLiteral.isConstant(code));
+        assertFalse(PackedLiteral.isNegated(PackedLiteral.negate(code)));
+        assertThrows(IndexOutOfBoundsException.class, () -> PackedLiteral.of(-1, false));
+
+        VariableTable variables = new VariableTable();
+        int not_q = variables.encode(Literal.newInstance("~q"));
+        assertEquals(variables.encode(Literal.newInstance("q")), PackedLiteral.negate(not_q));
+        assertEquals(variables.encode(Literal.newInstance("~F")), PackedLiteral.TRUE);
+        assertEquals(PackedLiteral.toString(not_q, variables), "~q");
+        assertEquals(PackedLiteral.toString(PackedLiteral.FALSE, variables), "F");
+        assertEquals(variables.size(), 1);
+    }
+
+    @Test
+    void getTruthValue() {
+        VariableTable variables = new VariableTable();
+        int p = variables.encode(Literal.newInstance("p"));
+        Assignment assignment = new Assignment(variables);
+        assertThrows(IllegalStateException.class, () -> assignment.getTruthValue(p));
+        assignment.assign(0, false);
+        assertFalse(assignment.getTruthValue(p));
+        assertTrue(assignment.getTruthValue(PackedLiteral.negate(p)));
+        assertTrue(assignment.getTruthValue(PackedLiteral.TRUE));
+        assertFalse(assignment.getTruthValue(PackedLiteral.FALSE));
+    }
+
+    @Test
+    void packedCNF() {
+        String[] formulas = {
+                "a /\\ (b \\/ ~c)",
+                "(a -> b) <-> ~(c /\\ a)",
+                "a \\/ b /\\ c \\/ ~(a -> ~d)",
+                "~(a <-> b) /\\ (c \\/ d) -> a",
+                "a \\/ ~a",
+                "a /\\ ~a /\\ (b \\/ F)",
+                "(a \\/ T) /\\ (b \\/ b)",
+        };
+        for (String formula : formulas) {
+            Parser parser = new Parser().evaluate(formula);
+            Node tree = parser.getTree();
+            VariableTable variables = parser.getVariableTable();
+            int variable_count = variables.size();
+            int[][] clauses = tree.toPackedCNF(variables);
+            assertEquals(variables.size(), variable_count, formula);  // no new variable in CNF
+            for (int row = 0; row < 1 << variable_count; row++) {
+                Assignment assignment = new Assignment(variables);
+                for (int i = 0; i < variable_count; i++) assignment.assign(i, (row >>> i & 1) == 1);
+                assertEquals(tree.isTrue(assignment), PackedLiteral.isSatisfied(clauses, assignment), formula);
+            }
+        }
+
+        VariableTable variables = new VariableTable();
+        assertEquals(new Parser().evaluate("a \\/ ~a").getTree().toPackedCNF(variables).length, 0);
+        int[][] contradiction = new Parser().evaluate("b /\\ F").getTree().toPackedCNF(variables);
+        assertEquals(contradiction.length, 2);
+        assertEquals(contradiction[1].length, 0);
+
+        int[][] clauses = new Parser().evaluate("(b \\/ ~c) /\\ c").getTree().toPackedCNF(variables);
+        assertArrayEquals(clauses[0], new int[]{variables.encode(Literal.newInstance("b")),
+                variables.encode(Literal.newInstance("~c"))});
+        assertArrayEquals(clauses[1], new int[]{variables.encode(Literal.newInstance("c"))});
+    }
+}
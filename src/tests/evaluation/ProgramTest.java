@@ -0,0 +1,73 @@
+package tests.evaluation;
+
+import core.Parser;
+import core.evaluation.Program;
+import core.symbols.Literal;
+import core.trees.Node;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgramTest {
+
+    private Parser parser = new Parser();
+
+    // compare the program against the tree for every assignment
+    private void assertSameAsTree(String formula) {
+        Node tree = parser.evaluate(formula).getTree();
+        Literal[] literals = parser.getLiterals();
+        Program program = tree.compile(literals);
+        for (long assignment = 0; assignment < 1L << literals.length; assignment++) {
+            boolean[] values = new boolean[literals.length];
+            for (int i = 0; i < literals.length; i++) {
+                values[i] = (assignment >>> i & 1) == 1;
+                literals[i].assignIfNotTF(values[i]);
+            }
+            assertEquals(tree.isTrue(), program.evaluate(assignment), formula);
+            assertEquals(tree.isTrue(), program.evaluate(values), formula);
+        }
+    }
+
+    @Test
+    void compile() {
+        Program program = parser.evaluate("(a /\\ ~b) -> ~~c").getTree().compile();
+        assertEquals(program.toString(), "a ~b AND c IMPLIES");
+        assertArrayEquals(program.getVariables(), new String[]{"a", "b", "c"});
+        assertEquals(program.getMaxDepth(), 2);
+
+        program = parser.evaluate("~(T \\/ ~F)").getTree().compile();
+        assertEquals(program.toString(), "T T OR NOT");
+        assertEquals(program.getSlotCount(), 0);
+    }
+
+    @Test
+    void compileWithFixedSlots() {
+        Node tree = parser.evaluate("a /\\ b").getTree();
+        Program program = tree.compile(new Literal[]{Literal.newInstance("b"), Literal.newInstance("a")});
+        assertEquals(program.getSlot("b"), 0);
+        assertEquals(program.getSlot("a"), 1);
+        assertEquals(program.getSlot("c"), -1);
+        assertThrows(IllegalArgumentException.class, () -> tree.compile(new Literal[]{Literal.newInstance("a")}));
+    }
+
+    @Test
+    void evaluate() {
+        assertSameAsTree("a -> b");
+        assertSameAsTree("a <-> b");
+        assertSameAsTree("a \\/ ~b /\\ T");
+        assertSameAsTree("~~~(a -> b /\\ ~c \\/ ~b) <-> a -> c /\\ ~(c /\\ ((~a))) -> ~~~~((a)) /\\ (~(~~(~c)))");
+        assertSameAsTree("(a /\\ (~b -> a) <-> c \\/ b -> ~a /\\ (c <-> a)) \\/ ~b");
+    }
+
+    @Test
+    void evaluateDeepStack() {
+        // right nested brackets keep every left operand on the stack
+        StringBuilder formula = new StringBuilder();
+        for (int i = 0; i < 100; i++) formula.append(i % 2 == 0 ? "a -> (" : "b <-> (");
+        formula.append("c");
+        formula.append(")".repeat(100));
+        Program program = parser.evaluate(formula.toString()).getTree().compile();
+        assertTrue(program.getMaxDepth() > Long.SIZE);
+        assertSameAsTree(formula.toString());
+    }
+}
@@ -0,0 +1,93 @@
+package tests.shards;
+
+import core.TruthTable;
+import core.shards.ShardCoordinator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardCoordinatorTest {
+
+    private void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void mergeTest() throws IOException {
+        String formula = "a /\\ b -> c \\/ ~d <-> e /\\ f -> g \\/ h <-> ~i /\\ l";
+        TruthTable truth_table = new TruthTable();
+        truth_table.evaluate(formula);
+        Path directory = Files.createTempDirectory("shards");
+        try {
+            ShardCoordinator coordinator = new ShardCoordinator(formula, directory, 3, 2);
+            assertEquals(coordinator.getShardBits(), 2);
+            ShardCoordinator.Result result = coordinator.run(true);
+            assertArrayEquals(result.getVariableNames(), truth_table.getVariableNames());
+            assertArrayEquals(result.getModels(), truth_table.generateBits());
+            assertEquals(result.countModels(), truth_table.countModels());
+
+            // a corrupted shard is evaluated again, the others are reused
+            Files.write(directory.resolve("shard-1.bin"), new byte[]{1, 2, 3});
+            assertArrayEquals(coordinator.run(true).getModels(), truth_table.generateBits());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void otherFormulaTest() throws IOException {
+        Path directory = Files.createTempDirectory("shards");
+        try {
+            // same variables and shards, results of the first formula must not be reused for the second
+            ShardCoordinator and = new ShardCoordinator("a /\\ b /\\ c /\\ d /\\ e /\\ f /\\ g", directory, 2, 1);
+            assertEquals(and.run(false).countModels(), 1);
+            ShardCoordinator or = new ShardCoordinator("a \\/ b \\/ c \\/ d \\/ e \\/ f \\/ g", directory, 2, 1);
+            assertEquals(or.run(false).countModels(), 127);
+            assertEquals(and.run(false).countModels(), 1);
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void smallTableTest() throws IOException {
+        Path directory = Files.createTempDirectory("shards");
+        try {
+            ShardCoordinator coordinator = new ShardCoordinator("a -> b", directory, 2, 4);
+            assertEquals(coordinator.getShardBits(), 0);  // 4 rows fit in one shard
+            ShardCoordinator.Result result = coordinator.run(false);
+            assertEquals(result.countModels(), 3);
+            assertNull(result.getModels());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void timeoutTest() throws Exception {
+        Path directory = Files.createTempDirectory("shards");
+        try {
+            // no worker can start within a millisecond, so every attempt is killed
+            ShardCoordinator coordinator = new ShardCoordinator("a /\\ b /\\ c /\\ d /\\ e /\\ f /\\ g",
+                    directory, 2, 1, Duration.ofMillis(1));
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> coordinator.run(false));
+            assertTrue(e.getMessage().contains("timed out 3 times"), e.getMessage());
+            for (int attempt = 0; attempt < 100 && ProcessHandle.current().children().anyMatch(ProcessHandle::isAlive);
+                 attempt++) {
+                Thread.sleep(50);
+            }
+            assertFalse(ProcessHandle.current().children().anyMatch(ProcessHandle::isAlive), "orphaned workers");
+        } finally {
+            delete(directory);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package tests.sinks;
+
+import core.TruthTable;
+import core.sinks.BinaryRowSink;
+import core.sinks.CsvRowSink;
+import core.sinks.MarkdownRowSink;
+import core.sinks.RowSink;
+import core.sinks.TextRowSink;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowSinkTest {
+
+    private String ls = System.lineSeparator();
+    private TruthTable truth_table = new TruthTable();
+
+    private byte[] generate(String formula, Function<OutputStream, RowSink> sink) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        truth_table.evaluate(formula);
+        truth_table.generate(sink.apply(out));
+        return out.toByteArray();
+    }
+
+    private String generateString(String formula, Function<OutputStream, RowSink> sink) {
+        return new String(generate(formula, sink), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void textTest() {
+        String expected = "|-----|-----------|" + ls +
+                "|    a|Truth Value|" + ls +
+                "|-----|-----------|" + ls +
+                "| true|      false|" + ls +
+                "|false|       true|" + ls +
+                "|-----|-----------|" + ls;
+        assertEquals(generateString("~a", TextRowSink::new), expected);
+        assertEquals(truth_table.getTrueRowCount(), 1);
+
+        // columns are sized to the literal names
+        String table = generateString("rabbit /\\ T", TextRowSink::new);
+        assertTrue(table.contains("|rabbit|") && table.contains("|    T|"), table);
+        assertTrue(table.contains("|  true|") && table.contains("| false|"), table);
+    }
+
+    @Test
+    void csvTest() {
+        String expected = "a,b,Truth Value" + ls +
+                "1,1,1" + ls +
+                "1,0,0" + ls +
+                "0,1,1" + ls +
+                "0,0,1" + ls;
+        assertEquals(generateString("a -> b", CsvRowSink::new), expected);
+        assertEquals(generateString("a /\\ F", CsvRowSink::new), "a,F,Truth Value" + ls + "1,0,0" + ls + "0,0,0" + ls);
+    }
+
+    @Test
+    void markdownTest() {
+        String expected = "| a     | b     | Truth Value |" + ls +
+                "| ----- | ----- | ----------- |" + ls +
+                "| true  | true  | true        |" + ls +
+                "| true  | false | false       |" + ls +
+                "| false | true  | false       |" + ls +
+                "| false | false | false       |" + ls;
+        assertEquals(generateString("a /\\ b", MarkdownRowSink::new), expected);
+    }
+
+    @Test
+    void binaryTest() {
+        ByteBuffer buffer = ByteBuffer.wrap(generate("a \\/ b", BinaryRowSink::new));
+        assertEquals(buffer.getInt(), BinaryRowSink.magic);
+        assertEquals(buffer.getInt(), 2);
+        for (String name : new String[]{"a", "b"}) {
+            byte[] title = new byte[buffer.getShort()];
+            buffer.get(title);
+            assertEquals(new String(title, StandardCharsets.UTF_8), name);
+        }
+        assertEquals(buffer.get(), 0b111);
+        assertEquals(buffer.get(), 0b101);
+        assertEquals(buffer.get(), 0b110);
+        assertEquals(buffer.get(), 0b000);
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void sameAsGenerateTest() {
+        String formula = "a /\\ ~b -> (c <-> ~d) \\/ T";
+        StringBuilder csv = new StringBuilder();
+        truth_table.evaluate(formula);
+        String table = truth_table.generate();
+        long true_rows = truth_table.getTrueRowCount();
+        for (String line : generateString(formula, CsvRowSink::new).split(ls)) {
+            csv.append(line.replace("Truth Value", "").replace("1", "t").replace("0", "f"));
+        }
+        StringBuilder expected = new StringBuilder();
+        for (String line : table.split(ls)) {
+            if (line.contains("---")) continue;
+            expected.append(line.replace(" ", "").replace("|", ",")
+                    .replace("TruthValue", "").replace("true", "t").replace("false", "f")
+                    .replaceAll("^,|,$", ""));
+        }
+        assertEquals(csv.toString().replace(",", ""), expected.toString().replace(",", ""));
+        assertEquals(truth_table.getTrueRowCount(), true_rows);
+    }
+
+    @Test
+    void resumeTest() throws IOException {
+        String formula = "a /\\ b -> c \\/ ~d <-> e /\\ f -> g \\/ h <-> ~i /\\ l";
+        String expected = generateString(formula, CsvRowSink::new);
+        long true_rows = truth_table.getTrueRowCount();
+        Path output = Files.createTempFile("truth_table", ".csv");
+        Path checkpoint = output.resolveSibling(output.getFileName() + ".checkpoint");
+        try {
+            // stop after 300 rows, the last checkpoint is at row 256
+            assertThrows(IllegalStateException.class,
+                    () -> truth_table.generate(output, checkpoint, out -> new CrashingSink(out, 300), 64));
+            assertTrue(Files.exists(checkpoint));
+
+            truth_table.evaluate(formula);
+            truth_table.generate(output, checkpoint, CsvRowSink::new, 64);
+            assertEquals(Files.readString(output), expected);
+            assertEquals(truth_table.getTrueRowCount(), true_rows);
+            assertFalse(Files.exists(checkpoint));
+
+            // a checkpoint of another formula is rejected
+            assertThrows(IllegalStateException.class,
+                    () -> truth_table.generate(output, checkpoint, out -> new CrashingSink(out, 100), 64));
+            truth_table.evaluate("a \\/ b");
+            assertThrows(IllegalStateException.class, () -> truth_table.generate(output, checkpoint));
+        } finally {
+            Files.deleteIfExists(output);
+            Files.deleteIfExists(checkpoint);
+        }
+    }
+
+    private static class CrashingSink extends CsvRowSink {
+        private int rows_left;
+
+        private CrashingSink(OutputStream out, int rows) {
+            super(out);
+            rows_left = rows;
+        }
+
+        @Override
+        public void row(long columns, boolean value) throws IOException {
+            if (rows_left-- == 0) throw new IllegalStateException("crash");
+            super.row(columns, value);
+        }
+    }
+}
@@ -3,6 +3,13 @@ package tests.symbols;
 import core.exceptions.InvalidSymbolException;
 import core.symbols.Literal;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.*;
@@ -415,4 +422,119 @@ class LiteralTest {
         assertEquals(literal.toString(), String.format("Full literal: ~T,%nRaw literal: T,%nNegated: true,%n" +
                 "Tautology: false,%nContradiction: true,%nAssigned raw value: true,%nTruth value: false"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void charRangeInstance() {
+        char[] chars = "(horse /\\ T)".toCharArray();
+        Literal horse = Literal.newInstance(chars, 1, 5);
+        assertSame(horse, Literal.newInstance("horse"));
+        assertSame(horse, Literal.newInstance(chars, 1, 5));
+        assertSame(Literal.newInstance(chars, 10, 1), Literal.getTautology());
+        assertThrows(InvalidSymbolException.class, () -> Literal.newInstance(chars, 0, 3));
+        assertThrows(InvalidSymbolException.class, () -> Literal.newInstance(chars, 1, 0));
+    }
+
+    @Test
+    void collidingHashes() throws Exception {
+        // "x" and "~b" used to share a table key, as did the raw literals "Aa" and "BB"
+        Literal x = Literal.newInstance("x");
+        Literal not_b = Literal.newInstance("~b");
+        assertEquals("x", x.getFull());
+        assertEquals("~b", not_b.getFull());
+        assertNotSame(x, not_b);
+
+        Literal aa = Literal.newInstance("Aa");
+        Literal bb = Literal.newInstance("BB");
+        assertEquals(aa.hashCode(), bb.hashCode());
+        assertNotEquals(aa, bb);
+        assertNotEquals(0, aa.compareTo(bb));
+        assertEquals(-aa.compareTo(bb), bb.compareTo(aa));
+
+        // assign reaches both polarities of its own raw literal only
+        Literal not_x = Literal.newInstance("~x");
+        Literal b = Literal.newInstance("b");
+        b.assign(false);
+        x.assign(true);
+        assertTrue(x.getTruthValue());
+        assertFalse(not_x.getTruthValue());
+        assertFalse(b.getTruthValue());
+        assertTrue(not_b.getTruthValue());
+    }
+
+    @Test
+    void concurrentInstances() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Literal[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    Literal[] literals = new Literal[2000];
+                    for (int i = 0; i < 1000; i++) {
+                        String raw = "concurrent" + toLetters(i);
+                        literals[2 * i] = Literal.newInstance(raw);
+                        literals[2 * i + 1] = Literal.newInstance("~" + raw);
+                    }
+                    return literals;
+                }));
+            }
+            Literal[] first = futures.get(0).get();
+            for (Future<Literal[]> future : futures) {
+                Literal[] literals = future.get();
+                for (int i = 0; i < literals.length; i++) {
+                    assertSame(first[i], literals[i]);
+                }
+            }
+            for (int i = 0; i < 1000; i++) {
+                assertEquals("concurrent" + toLetters(i), first[2 * i].getFull());
+                assertEquals("~concurrent" + toLetters(i), first[2 * i + 1].getFull());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void poolStatistics() {
+        Literal.PoolStatistics before = Literal.getPoolStatistics();
+        Literal created = Literal.newInstance("statistics");
+        assertSame(created, Literal.newInstance("((statistics))"));
+        assertSame(created, Literal.newInstance("statistics".toCharArray(), 0, 10));
+        Literal.PoolStatistics after = Literal.getPoolStatistics();
+        // other tests may run concurrently, so only lower bounds
+        assertTrue(after.getMisses() - before.getMisses() >= 1);
+        assertTrue(after.getHits() - before.getHits() >= 2);
+        assertTrue(after.getSize() >= 1);
+        assertTrue(after.getHitRate() > 0 && after.getHitRate() <= 1);
+    }
+
+    @Test
+    void unusedLiteralsAreEvicted() throws Exception {
+        WeakReference<Literal> reference = new WeakReference<>(Literal.newInstance("evictedliteral"));
+        for (int i = 0; i < 1000; i++) {
+            Literal.newInstance("evicted" + toLetters(i));
+        }
+        long evictions = Literal.getPoolStatistics().getEvictions();
+        for (int attempt = 0; attempt < 50 && reference.get() != null; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get(), "literal not collected");
+
+        // the dropped entries are noticed on the next insertion or size query
+        for (int attempt = 0; attempt < 50 && Literal.getPoolStatistics().getEvictions() == evictions; attempt++) {
+            Thread.sleep(10);
+        }
+        assertTrue(Literal.getPoolStatistics().getEvictions() > evictions);
+        assertEquals("evictedliteral", Literal.newInstance("evictedliteral").getFull());
+    }
+
+    private static String toLetters(int i) {
+        StringBuilder builder = new StringBuilder();
+        do {
+            builder.append((char) ('a' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return builder.toString();
+    }
+}
@@ -0,0 +1,92 @@
+package tests.tree;
+
+import core.Parser;
+import core.evaluation.CompiledFormula;
+import core.trees.Fingerprint;
+import core.trees.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FingerprintTest {
+
+    private static Node tree(String formula) {
+        return new Parser().evaluate(formula).getTree();
+    }
+
+    @Test
+    void hashCodeConsistentWithEquals() {
+        String[] formulas = {"a", "~a", "(a)", "a /\\ b", "b /\\ a", "a \\/ b", "a -> b", "a <-> b",
+                "~(a /\\ b) -> (c <-> ~~d)", "(a /\\ b) /\\ c", "a /\\ (b /\\ c)", "T \\/ F"};
+        for (String formula : formulas) {
+            Node first = tree(formula), second = tree(formula);
+            assertNotSame(first, second);
+            assertEquals(first, second, formula);
+            assertEquals(first.hashCode(), second.hashCode(), formula);
+            assertEquals(first.getFingerprint(), second.getFingerprint(), formula);
+            assertEquals(first.copy().hashCode(), first.hashCode(), formula);
+        }
+
+        Set<Fingerprint> fingerprints = new HashSet<>();
+        for (String formula : formulas) {
+            assertTrue(fingerprints.add(tree(formula).getFingerprint()), formula);
+        }
+    }
+
+    @Test
+    void treesAsKeys() {
+        Map<Node, String> cache = new HashMap<>();
+        cache.put(tree("p -> q /\\ r"), "first");
+        cache.put(tree("~p"), "second");
+        assertEquals(cache.get(tree("p -> q /\\ r")), "first");
+        assertEquals(cache.get(tree("~p")), "second");
+        assertNull(cache.get(tree("p -> r /\\ q")));
+    }
+
+    @Test
+    void invalidatedByEliminateArrows() {
+        Node tree = tree("(a -> b) <-> c");
+        int hash = tree.hashCode();
+        Fingerprint fingerprint = tree.getFingerprint();
+        Node expected = tree("(a -> b) <-> c").eliminateArrows();  // never hashed before
+
+        tree.eliminateArrows();
+        assertEquals(tree, expected);
+        assertEquals(tree.hashCode(), expected.hashCode());
+        assertEquals(tree.getFingerprint(), expected.getFingerprint());
+        assertNotEquals(tree.getFingerprint(), fingerprint);
+        assertNotEquals(tree.hashCode(), hash);
+    }
+
+    @Test
+    void deepTree() {
+        // 20000 operands deep on the left, neither hashing nor comparing recurses
+        StringBuilder chain = new StringBuilder("a");
+        for (int i = 0; i < 20000; i++) {
+            chain.append(i % 2 == 0 ? " <-> b" : " /\\ ~c");
+        }
+        Parser parser = new Parser(Parser.Mode.PRECEDENCE_CLIMBING);
+        Node first = parser.evaluate(chain.toString()).getTree();
+        Node second = parser.evaluate(chain.toString()).getTree();
+        assertNotSame(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertEquals(first.getFingerprint(), second.getFingerprint());
+        assertEquals(first, second);
+        assertSame(CompiledFormula.of(first), CompiledFormula.of(second));  // equal trees share the cache entry
+    }
+
+    @Test
+    void fingerprintString() {
+        Fingerprint fingerprint = new Fingerprint(0x0123456789abcdefL, -1L);
+        assertEquals(fingerprint.toString(), "0123456789abcdefffffffffffffffff");
+        assertEquals(fingerprint, new Fingerprint(fingerprint.getHigh(), fingerprint.getLow()));
+        // only depends on the formula, these must never change as they may be stored, e.g. in shard files
+        assertEquals(tree("a").getFingerprint().toString(), "051acbbb8451088b07a172fa8181f533");
+        assertEquals(tree("a /\\ ~b").getFingerprint().toString(), "c42c58fa7b773a237e4b9ac7b2899832");
+    }
+}
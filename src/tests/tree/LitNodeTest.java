@@ -1,5 +1,6 @@
 package tests.tree;
 
+import core.evaluation.PackedLiteral;
 import core.exceptions.InvalidInsertionException;
 import core.symbols.Connective;
 import core.symbols.Literal;
@@ -72,4 +73,23 @@ class LitNodeTest {
         assertEquals(copy, normal_node);
         assertNotSame(copy, normal_node);
     }
-}
\ No newline at end of file
+
+    @Test
+    void indexTest() {
+        LitNode node = new LitNode(Literal.newInstance("S"), 3);
+        assertEquals(node.getIndex(), 3);
+        assertEquals(((LitNode) node.copy()).getIndex(), 3);
+        assertEquals(new LitNode(Literal.newInstance("S")).getIndex(), -1);
+    }
+
+    @Test
+    void codeTest() {
+        assertEquals(new LitNode(Literal.newInstance("S"), 3).getCode(), PackedLiteral.of(3, false));
+        assertEquals(new LitNode(Literal.newInstance("~S"), 3).getCode(), 9);
+        assertEquals(((LitNode) new LitNode(Literal.newInstance("~S"), 3).copy()).getCode(), 9);
+        assertEquals(new LitNode(Literal.newInstance("S")).getCode(), -1);
+        assertEquals(new LitNode(Literal.getTautology()).getCode(), PackedLiteral.TRUE);
+        assertEquals(new LitNode(Literal.newInstance("~T")).getCode(), PackedLiteral.FALSE);
+        assertEquals(new LitNode(Literal.newInstance("~T")).getIndex(), -1);
+    }
+}